@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.anyqn.lib.GeneratedSuite;
+import com.anyqn.lib.GenerationPlan;
+import com.anyqn.lib.PairwiseJsonGenerator;
+import com.anyqn.lib.Properties;
+
+/**
+ * Throughput of generation phases, run with -prof gc for allocation rate
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PairwiseJsonGeneratorBenchmark {
+
+    @Param({ "4", "16" })
+    private int fields;
+    @Param({ "2", "4" })
+    private int valuesPerField;
+    @Param({ "0", "1", "2" })
+    private int depth;
+    @Param({ "0", "1" })
+    private int minRestriction;
+    @Param({ "2" })
+    private int maxRestriction;
+
+    private Map<String, List<Object>> metadata;
+    private Properties properties;
+    private PairwiseJsonGenerator generator;
+    private GenerationPlan plan;
+
+    @Setup
+    public void setup() {
+        final SyntheticDescription description = SyntheticDescription.builder().fields(fields)
+                .valuesPerField(valuesPerField).depth(depth).minRestriction(minRestriction)
+                .maxRestriction(maxRestriction).build();
+        metadata = description.metadata();
+        properties = description.properties();
+        generator = new PairwiseJsonGenerator();
+        plan = generator.compile(metadata, properties);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> generate() {
+        return generator.generate(metadata, properties);
+    }
+
+    @Benchmark
+    public GenerationPlan compile() {
+        return generator.compile(metadata, properties);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> generateFromPlan() {
+        return plan.generate();
+    }
+
+    @Benchmark
+    public long streamFromPlan() {
+        return plan.stream().count();
+    }
+
+    @Benchmark
+    public GeneratedSuite suiteFromPlan() {
+        return plan.suite();
+    }
+
+}
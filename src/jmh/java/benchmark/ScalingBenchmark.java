@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.anyqn.lib.PairwiseJsonGenerator;
+import com.anyqn.lib.Properties;
+
+/**
+ * Time of full generation by width and depth of description, results of every
+ * params combination are points of scaling curves. By default sibling objects
+ * are different subtrees, so numbers measure generation and not subtree cache,
+ * identical siblings show effect of the cache. Allocation rate is not
+ * measured by default, it is reported by GC profiler per operation
+ * (gc.alloc.rate.norm):
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ScalingBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ScalingBenchmark {
+
+    @Param({ "2", "4", "8", "16", "32", "64" })
+    private int fields;
+    @Param({ "0", "1", "2", "3" })
+    private int depth;
+    @Param({ "3" })
+    private int valuesPerField;
+    @Param({ "2" })
+    private int objectFields;
+    @Param({ "false", "true" })
+    private boolean identicalSiblings;
+
+    private Map<String, List<Object>> metadata;
+    private Properties properties;
+    private PairwiseJsonGenerator generator;
+
+    @Setup
+    public void setup() {
+        final SyntheticDescription description = SyntheticDescription.builder().fields(fields)
+                .valuesPerField(valuesPerField).depth(depth).objectFields(objectFields).maxRestriction(2)
+                .identicalSiblings(identicalSiblings).build();
+        metadata = description.metadata();
+        properties = description.properties();
+        generator = new PairwiseJsonGenerator();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> generate() {
+        return generator.generate(metadata, properties);
+    }
+
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.anyqn.lib.Properties;
+import com.anyqn.lib.Properties.Restriction;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Synthetic description of generated objects. Every level has scalar fields
+ * with string values and object fields with nested level, restrictions are
+ * added for every object field path. Values are salted by object path, so
+ * sibling objects are different subtrees and are not taken from subtree cache,
+ * unless identical siblings are requested
+ */
+@Getter
+@Builder
+public final class SyntheticDescription {
+
+    private static final String DOT = ".";
+
+    /**
+     * Number of scalar fields on every level
+     */
+    @Builder.Default
+    private final int fields = 4;
+    /**
+     * Number of possible values of every scalar field
+     */
+    @Builder.Default
+    private final int valuesPerField = 2;
+    /**
+     * Number of nested levels of objects
+     */
+    @Builder.Default
+    private final int depth = 1;
+    /**
+     * Number of object fields on every level except last
+     */
+    @Builder.Default
+    private final int objectFields = 1;
+    /**
+     * Min restriction of object fields, zero for no restriction
+     */
+    @Builder.Default
+    private final int minRestriction = 0;
+    /**
+     * Max restriction of object fields, zero for no restriction
+     */
+    @Builder.Default
+    private final int maxRestriction = 2;
+    /**
+     * Sibling object fields have equal descriptions, so all of them except first
+     * are taken from subtree cache
+     */
+    private final boolean identicalSiblings;
+
+    /**
+     * @return description of fields possible values
+     */
+    public Map<String, List<Object>> metadata() {
+        return level(null, depth);
+    }
+
+    /**
+     * @return restrictions for every object field path
+     */
+    public Properties properties() {
+        final Properties properties = new Properties();
+        addRestrictions(properties, null, depth);
+        return properties;
+    }
+
+    private Map<String, List<Object>> level(final String rootPath, final int remainingDepth) {
+        final Map<String, List<Object>> level = new LinkedHashMap<>();
+        final String salt = identicalSiblings || rootPath == null ? "" : rootPath + DOT;
+        for (int field = 0; field < fields; field++) {
+            final List<Object> values = new ArrayList<>();
+            for (int value = 0; value < valuesPerField; value++) {
+                values.add(salt + "field" + field + "value" + value);
+            }
+            level.put("field" + field, values);
+        }
+        if (remainingDepth > 0) {
+            for (int object = 0; object < objectFields; object++) {
+                final List<Object> objects = new ArrayList<>();
+                objects.add(level(rootPath == null ? "object" + object : rootPath + DOT + "object" + object,
+                        remainingDepth - 1));
+                level.put("object" + object, objects);
+            }
+        }
+        return level;
+    }
+
+    private void addRestrictions(final Properties properties, final String rootPath, final int remainingDepth) {
+        if (remainingDepth == 0) {
+            return;
+        }
+        for (int object = 0; object < objectFields; object++) {
+            final String path = rootPath == null ? "object" + object : rootPath + DOT + "object" + object;
+            if (minRestriction > 0) {
+                properties.getMinRestrictions().add(restriction(path, minRestriction));
+            }
+            if (maxRestriction > 0) {
+                properties.getMaxRestrictions().add(restriction(path, maxRestriction));
+            }
+            addRestrictions(properties, path, remainingDepth - 1);
+        }
+    }
+
+    private static Restriction restriction(final String path, final int value) {
+        final Restriction restriction = new Restriction();
+        restriction.setFieldPath(path);
+        restriction.setValue(value);
+        return restriction;
+    }
+
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.Validate;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Asynchronous generation of many descriptions. Not more than max concurrency
+ * generations run at the same time, other generations wait in queue and are
+ * passed to executor when running generation is completed, so they do not take
+ * threads of executor. By default generations run on virtual threads if
+ * JVM has them or on fixed pool of daemon threads. All generations share one
+ * {@link SubtreeCache}, so identical subtrees of different descriptions are
+ * generated once
+ */
+public final class BatchGenerator implements AutoCloseable {
+
+    private static final String MAX_CONCURRENCY_VALIDATION_MESSAGE = "Max concurrency [%s] must be more than zero";
+    private static final String THREAD_NAME = "pairwise-batch-";
+
+    /**
+     * Generator with shared subtree cache
+     */
+    @Getter
+    private final PairwiseJsonGenerator generator;
+    private final ExecutorService executor;
+    /**
+     * Executor is created by batch generator and is closed with it
+     */
+    private final boolean ownExecutor;
+    private final int maxConcurrency;
+    /**
+     * Generations waiting for running generations, guarded by itself
+     */
+    private final Queue<Generation> pending = new ArrayDeque<>();
+    private int running;
+
+    /**
+     * Batch generator with default executor and concurrency equal to number of
+     * processors
+     *
+     * @param generator generator of every description
+     */
+    public BatchGenerator(@NonNull final PairwiseJsonGenerator generator) {
+        this(generator, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Batch generator with default executor
+     *
+     * @param generator      generator of every description
+     * @param maxConcurrency max number of concurrent generations
+     */
+    public BatchGenerator(@NonNull final PairwiseJsonGenerator generator, final int maxConcurrency) {
+        this(generator, newExecutor(maxConcurrency), true, maxConcurrency);
+    }
+
+    /**
+     * Batch generator with executor which is not closed by batch generator
+     *
+     * @param generator      generator of every description
+     * @param executor       executor of generations
+     * @param maxConcurrency max number of concurrent generations
+     */
+    public BatchGenerator(@NonNull final PairwiseJsonGenerator generator, @NonNull final ExecutorService executor,
+            final int maxConcurrency) {
+        this(generator, executor, false, maxConcurrency);
+    }
+
+    private BatchGenerator(final PairwiseJsonGenerator generator, final ExecutorService executor,
+            final boolean ownExecutor, final int maxConcurrency) {
+        Validate.isTrue(maxConcurrency > 0, MAX_CONCURRENCY_VALIDATION_MESSAGE, maxConcurrency);
+        final GenerationOptions options = generator.getOptions();
+        this.generator = Objects.isNull(options.getSubtreeCache())
+                ? new PairwiseJsonGenerator(options.toBuilder().subtreeCache(new SubtreeCache()).build())
+                : generator;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Generate all possible variants of one description asynchronously
+     *
+     * @param request description with restrictions
+     * @return future of list of possible variants of generated map,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull CompletableFuture<List<Map<String, Object>>> submit(@NonNull final GenerationRequest request) {
+        final Generation task = new Generation(request);
+        final boolean start;
+        synchronized (pending) {
+            start = running < maxConcurrency;
+            if (start) {
+                running++;
+            } else {
+                pending.add(task);
+            }
+        }
+        if (start) {
+            execute(task);
+        }
+        return task.future;
+    }
+
+    /**
+     * Start next waiting generation when generation is completed, so waiting
+     * generations do not take threads of executor
+     */
+    private void next() {
+        final Generation task;
+        synchronized (pending) {
+            task = pending.poll();
+            if (Objects.isNull(task)) {
+                running--;
+            }
+        }
+        if (Objects.nonNull(task)) {
+            execute(task);
+        }
+    }
+
+    /**
+     * Pass generation to executor, future of generation rejected by executor is
+     * completed exceptionally and next generation is started
+     *
+     * @param task generation
+     */
+    private void execute(final Generation task) {
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            task.future.completeExceptionally(e);
+            next();
+        }
+    }
+
+    /**
+     * Generation of one description
+     */
+    @RequiredArgsConstructor
+    private final class Generation implements Runnable {
+        private final GenerationRequest request;
+        private final CompletableFuture<List<Map<String, Object>>> future = new CompletableFuture<>();
+
+        @Override
+        public void run() {
+            try {
+                future.complete(generator.generate(request.getMetadata(), request.getProperties()));
+            } catch (final RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            } finally {
+                next();
+            }
+        }
+    }
+
+    /**
+     * Generate all possible variants of every description asynchronously
+     *
+     * @param requests descriptions with restrictions
+     * @return futures of lists of possible variants in order of requests,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull List<CompletableFuture<List<Map<String, Object>>>> submitAll(
+            @NonNull final List<GenerationRequest> requests) {
+        return requests.stream().map(this::submit).collect(Collectors.toList());
+    }
+
+    /**
+     * Generate all possible variants of every description
+     *
+     * @param requests descriptions with restrictions
+     * @return future of lists of possible variants in order of requests,
+     *         completed exceptionally if any generation fails,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull CompletableFuture<List<List<Map<String, Object>>>> generateAll(
+            @NonNull final List<GenerationRequest> requests) {
+        final List<CompletableFuture<List<Map<String, Object>>>> futures = submitAll(requests);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Shutdown default executor, executor passed to constructor is not closed
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Create virtual thread per task executor if JVM has virtual threads, else
+     * fixed pool of daemon threads
+     *
+     * @param maxConcurrency max number of concurrent generations
+     * @return executor of generations
+     */
+    private static ExecutorService newExecutor(final int maxConcurrency) {
+        Validate.isTrue(maxConcurrency > 0, MAX_CONCURRENCY_VALIDATION_MESSAGE, maxConcurrency);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            final AtomicInteger threads = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxConcurrency, task -> {
+                final Thread thread = new Thread(task, THREAD_NAME + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+}
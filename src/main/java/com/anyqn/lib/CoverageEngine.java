@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.List;
+
+import lombok.NonNull;
+
+/**
+ * Engine of covering arrays. Engine works with numbers of values only, every
+ * param has values from 0 to domain size - 1, and every pair of values of
+ * different params must be covered by some row
+ */
+public interface CoverageEngine {
+
+    /**
+     * Value of seed row cell which is not set and can be set by engine
+     */
+    int FREE = -1;
+
+    /**
+     * Build covering array
+     *
+     * @param domainSizes number of possible values of every param
+     * @return table of rows with numbers of values
+     */
+    @NonNull
+    CoverageTable cover(@NonNull int[] domainSizes);
+
+    /**
+     * Build covering array which starts with seed rows, free cells of seed rows
+     * are set by engine and rows are added only for pairs not covered by seed
+     * rows. Engines which can not extend existing rows use
+     * {@link IpogCoverageEngine}
+     *
+     * @param domainSizes number of possible values of every param
+     * @param seed        rows which must be kept in the same order, cells are
+     *                    numbers of values or {@link #FREE}
+     * @return table of rows with numbers of values
+     */
+    @NonNull
+    default CoverageTable extend(@NonNull final int[] domainSizes, @NonNull final List<int[]> seed) {
+        return extend(domainSizes, seed, new ForbiddenPairs(domainSizes));
+    }
+
+    /**
+     * Build covering array which starts with seed rows and has no forbidden pairs,
+     * forbidden pairs are not required to be covered. Engines which can not
+     * extend existing rows or avoid forbidden pairs use {@link IpogCoverageEngine}
+     *
+     * @param domainSizes number of possible values of every param
+     * @param seed        rows which must be kept in the same order, cells are
+     *                    numbers of values or {@link #FREE}
+     * @param forbidden   pairs of values which can not be in one row
+     * @return table of rows with numbers of values
+     */
+    @NonNull
+    default CoverageTable extend(@NonNull final int[] domainSizes, @NonNull final List<int[]> seed,
+            @NonNull final ForbiddenPairs forbidden) {
+        return new IpogCoverageEngine().extend(domainSizes, seed, forbidden);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.List;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Result of pair coverage verification of generated suite. Pair of value with
+ * itself is single value, so values which are not generated at all are
+ * reported as missing pairs too
+ */
+@Value
+public class CoverageReport {
+
+    /**
+     * Number of pairs which must be covered on all levels of generated tree
+     */
+    long expectedPairs;
+    /**
+     * Number of expected pairs covered by suite
+     */
+    long coveredPairs;
+    /**
+     * Number of expected pairs which are not covered by suite
+     */
+    long missingPairsCount;
+    /**
+     * First missing pairs, number of reported pairs is limited
+     */
+    @NonNull
+    List<MissingPair> missingPairs;
+    /**
+     * Number of generated objects which do not match description or properties
+     */
+    long violationsCount;
+    /**
+     * First violations descriptions, number of reported violations is limited
+     */
+    @NonNull
+    List<String> violations;
+
+    /**
+     * @return part of expected pairs covered by suite
+     */
+    public double getCoverage() {
+        return expectedPairs == 0 ? 1 : (double) coveredPairs / expectedPairs;
+    }
+
+    /**
+     * @return true if suite covers all expected pairs and has no violations
+     */
+    public boolean isComplete() {
+        return missingPairsCount == 0 && violationsCount == 0;
+    }
+
+    /**
+     * Value of field, child object in object field or skipped position of
+     * object field
+     */
+    @Value
+    public static class Fact {
+        @NonNull
+        String field;
+        /**
+         * Value or child object, null for skipped position
+         */
+        Object value;
+        boolean skipped;
+    }
+
+    /**
+     * Pair which is not covered by any object on level of generated tree
+     */
+    @Value
+    public static class MissingPair {
+        /**
+         * Path of object field, empty for root object
+         */
+        @NonNull
+        String path;
+        @NonNull
+        Fact first;
+        @NonNull
+        Fact second;
+    }
+
+}
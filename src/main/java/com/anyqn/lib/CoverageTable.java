@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+/**
+ * Covering array built by {@link CoverageEngine}, table is only read after
+ * building, so it can be used concurrently
+ */
+public interface CoverageTable {
+
+    /**
+     * @return number of rows
+     */
+    int getRowsCount();
+
+    /**
+     * Get row of covering array
+     *
+     * @param index number of row
+     * @return numbers of values of every param, array is not shared with table
+     */
+    int[] getRow(int index);
+
+}
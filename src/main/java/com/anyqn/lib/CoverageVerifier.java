@@ -0,0 +1,570 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.Validate;
+
+import com.anyqn.lib.CoverageReport.Fact;
+import com.anyqn.lib.CoverageReport.MissingPair;
+
+import lombok.NonNull;
+
+/**
+ * Verifier of pair coverage of generated suite. Every object of suite is set
+ * of facts: value of scalar field, child object in object field and skipped
+ * position of object field with optional positions (min restriction is less
+ * than possible positions). On every level of generated tree every pair of
+ * facts of different fields, every pair of facts of one object field with more
+ * than one position and every single fact must be covered, except of pairs
+ * forbidden by constraints. Possible child objects are distinct child objects
+ * of suite, they are verified as next level of tree. Covered pairs are tracked
+ * in bitsets, so suite is read once for every level
+ */
+public final class CoverageVerifier {
+
+    /**
+     * Default number of reported missing pairs and violations
+     */
+    public static final int DEFAULT_MAX_REPORTED = 1000;
+    private static final String MAX_REPORTED_VALIDATION_MESSAGE = "Max reported [%s] must not be negative";
+    private static final String OBJECT_FIELD_DESCRIPTIONS = "Object field [%s] must have one description";
+    private static final String NOT_OBJECT = "Object at path [%s] is not Map [%s]";
+    private static final String UNKNOWN_FIELDS = "Object at path [%s] has unknown fields %s";
+    private static final String MISSING_FIELD = "Object at path [%s] has no field [%s]";
+    private static final String UNKNOWN_VALUE = "Object at path [%s] has unknown value [%s] of field [%s]";
+    private static final String NOT_LIST = "Object at path [%s] has not list of objects in field [%s]";
+    private static final String NOT_CHILD_OBJECT = "Object at path [%s] has not object in field [%s]";
+    private static final String MIN_RESTRICTION_VIOLATED = "Object at path [%s] has less than [%s] objects in [%s]";
+    private static final String MAX_RESTRICTION_VIOLATED = "Object at path [%s] has more than [%s] objects in [%s]";
+    private static final String FORBIDDEN_PAIR = "Object at path [%s] has forbidden pair %s and %s";
+    private static final String TOO_MANY_PAIRS = "Object at path [%s] has too many pairs of fields [%s] and [%s]: %s";
+
+    private final int maxReported;
+
+    public CoverageVerifier() {
+        this(DEFAULT_MAX_REPORTED);
+    }
+
+    /**
+     * @param maxReported max number of reported missing pairs and violations,
+     *                    all of them are counted
+     */
+    public CoverageVerifier(final int maxReported) {
+        Validate.isTrue(maxReported >= 0, MAX_REPORTED_VALIDATION_MESSAGE, maxReported);
+        this.maxReported = maxReported;
+    }
+
+    /**
+     * Verify pair coverage of suite generated from description
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @param suite        generated variants of map
+     * @return covered and missing pairs and violations of description
+     */
+    public @NonNull CoverageReport verify(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties, @NonNull final Collection<? extends Map<String, ?>> suite) {
+        PairwiseJsonGenerator.validate(jsonMetadata, properties);
+        final Verification verification = new Verification(properties.index());
+        verification.level(jsonMetadata, PathDictionary.ROOT, new ArrayList<>(suite));
+        return new CoverageReport(verification.expectedPairs, verification.coveredPairs,
+                verification.missingPairsCount, Collections.unmodifiableList(verification.missingPairs),
+                verification.violationsCount, Collections.unmodifiableList(verification.violations));
+    }
+
+    /**
+     * State of one verification
+     */
+    private final class Verification {
+        private final RestrictionIndex restrictions;
+        private long expectedPairs;
+        private long coveredPairs;
+        private long missingPairsCount;
+        private final List<MissingPair> missingPairs = new ArrayList<>();
+        private long violationsCount;
+        private final List<String> violations = new ArrayList<>();
+
+        Verification(final RestrictionIndex restrictions) {
+            this.restrictions = restrictions;
+        }
+
+        /**
+         * Verify objects of one level of tree and then their child objects
+         *
+         * @param description description of object
+         * @param pathId      id of object path or {@link PathDictionary#ROOT}
+         * @param objects     generated objects
+         */
+        void level(final Map<String, List<Object>> description, final int pathId, final List<?> objects) {
+            final String path = pathId == PathDictionary.ROOT ? GenerationListener.ROOT_PATH
+                    : restrictions.getPaths().path(pathId);
+            final Column[] columns = columns(description, pathId);
+
+            // Facts of valid objects by column, skipped positions are added when
+            // all child objects are known
+            final List<int[][]> rows = new ArrayList<>(objects.size());
+            for (final Object object : objects) {
+                if (isValid(path, columns, object)) {
+                    final int[][] row = new int[columns.length][];
+                    for (int c = 0; c < columns.length; c++) {
+                        row[c] = columns[c].encode(((Map<?, ?>) object).get(columns[c].name));
+                    }
+                    rows.add(row);
+                }
+            }
+            for (final Column column : columns) {
+                column.close();
+            }
+
+            // Pairs of one object field are needed only if it has more than one position
+            final Constraints constraints = new Constraints(restrictions.getConstraints(pathId), columns);
+            final BitSet[] singles = new BitSet[columns.length];
+            final FieldPairs[][] pairs = new FieldPairs[columns.length][columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                singles[i] = new BitSet();
+                for (int j = i; j < columns.length; j++) {
+                    if (i != j || columns[i].positions > 1) {
+                        pairs[i][j] = new FieldPairs(path, columns, i, j);
+                        constraints.forbid(pairs[i][j]);
+                    }
+                }
+            }
+            for (final int[][] encoded : rows) {
+                final int[][] row = new int[columns.length][];
+                for (int c = 0; c < columns.length; c++) {
+                    row[c] = columns[c].facts(encoded[c]);
+                }
+                if (isAllowed(path, columns, constraints, row)) {
+                    cover(columns, row, singles, pairs);
+                }
+            }
+
+            for (int i = 0; i < columns.length; i++) {
+                final Column column = columns[i];
+                check(singles[i], new BitSet(), column.size(),
+                        fact -> new MissingPair(path, column.fact(fact), column.fact(fact)));
+                for (int j = i; j < columns.length; j++) {
+                    final FieldPairs fieldPairs = pairs[i][j];
+                    if (fieldPairs != null) {
+                        check(fieldPairs.covered, fieldPairs.forbidden, fieldPairs.space, pair -> {
+                            final int[] facts = fieldPairs.facts(pair);
+                            return new MissingPair(path, columns[fieldPairs.first].fact(facts[0]),
+                                    columns[fieldPairs.second].fact(facts[1]));
+                        });
+                    }
+                }
+            }
+
+            for (final Column column : columns) {
+                if (!column.isScalar()) {
+                    level(column.description, column.pathId, column.values);
+                }
+            }
+        }
+
+        private Column[] columns(final Map<String, List<Object>> description, final int pathId) {
+            final List<Column> columns = new ArrayList<>();
+            for (final Entry<String, List<Object>> entry : description.entrySet()) {
+                final String name = PairwiseJsonGenerator.castField(entry.getKey());
+                final List<Map<String, List<Object>>> objectDescriptions = entry.getValue().stream()
+                        .map(PairwiseJsonGenerator::getMapObjectDescription).collect(Collectors.toList());
+                if (objectDescriptions.stream().allMatch(o -> !Objects.isNull(o))) {
+                    Validate.isTrue(objectDescriptions.size() == 1, OBJECT_FIELD_DESCRIPTIONS, name);
+                    final int childId = restrictions.child(pathId, name);
+                    columns.add(new Column(name, null, objectDescriptions.get(0), childId,
+                            restrictions.getMinRestriction(childId), restrictions.getMaxRestriction(childId),
+                            restrictions.isObject(childId)));
+                } else {
+                    columns.add(new Column(name, entry.getValue(), null, PathDictionary.ROOT, 0, 0, false));
+                }
+            }
+            return columns.toArray(new Column[0]);
+        }
+
+        private boolean isValid(final String path, final Column[] columns, final Object object) {
+            if (!(object instanceof Map)) {
+                return violation(NOT_OBJECT, path, object);
+            }
+            final Map<?, ?> map = (Map<?, ?>) object;
+            if (map.size() > columns.length) {
+                final Set<Object> unknown = new HashSet<>(map.keySet());
+                Arrays.stream(columns).forEach(column -> unknown.remove(column.name));
+                return violation(UNKNOWN_FIELDS, path, unknown);
+            }
+            for (final Column column : columns) {
+                if (!map.containsKey(column.name)) {
+                    return violation(MISSING_FIELD, path, column.name);
+                }
+                final Object value = map.get(column.name);
+                if (column.isScalar()) {
+                    if (!column.indexes.containsKey(value)) {
+                        return violation(UNKNOWN_VALUE, path, value, column.name);
+                    }
+                    continue;
+                }
+                final List<?> children;
+                if (column.object) {
+                    children = Objects.isNull(value) ? Collections.emptyList() : Collections.singletonList(value);
+                } else if (value instanceof List) {
+                    children = (List<?>) value;
+                } else {
+                    return violation(NOT_LIST, path, column.name);
+                }
+                if (!children.stream().allMatch(child -> child instanceof Map)) {
+                    return violation(NOT_CHILD_OBJECT, path, column.name);
+                } else if (children.size() < column.min) {
+                    return violation(MIN_RESTRICTION_VIOLATED, path, column.min, column.name);
+                } else if (children.size() > column.max) {
+                    return violation(MAX_RESTRICTION_VIOLATED, path, column.max, column.name);
+                }
+            }
+            return true;
+        }
+
+        private boolean isAllowed(final String path, final Column[] columns, final Constraints constraints,
+                final int[][] row) {
+            if (constraints.isEmpty()) {
+                return true;
+            }
+            for (int i = 0; i < columns.length; i++) {
+                for (int j = i; j < columns.length; j++) {
+                    for (final int a : row[i]) {
+                        for (final int b : row[j]) {
+                            if ((i != j || a < b) && constraints.isForbidden(i, a, j, b)) {
+                                return violation(FORBIDDEN_PAIR, path, columns[i].fact(a), columns[j].fact(b));
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void cover(final Column[] columns, final int[][] row, final BitSet[] singles,
+                final FieldPairs[][] pairs) {
+            for (int i = 0; i < columns.length; i++) {
+                for (final int a : row[i]) {
+                    singles[i].set(a);
+                    if (pairs[i][i] != null) {
+                        for (final int b : row[i]) {
+                            if (a < b) {
+                                pairs[i][i].covered.set(pairs[i][i].index(a, b));
+                            }
+                        }
+                    }
+                    for (int j = i + 1; j < columns.length; j++) {
+                        for (final int b : row[j]) {
+                            pairs[i][j].covered.set(pairs[i][j].index(a, b));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Count expected, covered and missing pairs, only reported missing pairs are
+         * enumerated
+         *
+         * @param covered   numbers of covered pairs
+         * @param forbidden numbers of forbidden pairs, they are not expected
+         * @param space     number of possible pairs
+         * @param missing   missing pair by number
+         */
+        private void check(final BitSet covered, final BitSet forbidden, final int space,
+                final IntFunction<MissingPair> missing) {
+            final BitSet excluded = (BitSet) covered.clone();
+            excluded.or(forbidden);
+            expectedPairs += space - forbidden.cardinality();
+            coveredPairs += covered.cardinality();
+            missingPairsCount += space - excluded.cardinality();
+            for (int pair = excluded.nextClearBit(0); pair < space && missingPairs.size() < maxReported;
+                    pair = excluded.nextClearBit(pair + 1)) {
+                missingPairs.add(missing.apply(pair));
+            }
+        }
+
+        private boolean violation(final String message, final Object... args) {
+            if (violationsCount++ < maxReported) {
+                violations.add(String.format(message, args));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Field of verified object. Facts of scalar field are distinct described
+     * values, facts of object field are distinct child objects and skipped
+     * position after them. Generated child objects are not deduplicated, so one
+     * list can have equal objects, number of generated child objects is
+     * estimated as sum of max numbers of every object in one list
+     */
+    private static final class Column {
+        private final String name;
+        /**
+         * Distinct values or child objects
+         */
+        private final List<Object> values = new ArrayList<>();
+        /**
+         * Numbers of distinct values or child objects
+         */
+        private final Map<Object, Integer> indexes = new HashMap<>();
+        /**
+         * Max number of equal child objects in one list by number of child object
+         */
+        private final List<Integer> multiplicities = new ArrayList<>();
+        /**
+         * Description of child object, null for scalar field
+         */
+        private final Map<String, List<Object>> description;
+        private final int pathId;
+        private final int min;
+        private final int max;
+        private final boolean object;
+        /**
+         * Possible positions of child objects, zero for scalar field
+         */
+        private int positions;
+        /**
+         * Skipped position is possible
+         */
+        private boolean optional;
+
+        Column(final String name, final List<Object> values, final Map<String, List<Object>> description,
+                final int pathId, final int min, final int max, final boolean object) {
+            this.name = name;
+            this.description = description;
+            this.pathId = pathId;
+            this.min = min;
+            this.max = max;
+            this.object = object;
+            if (!Objects.isNull(values)) {
+                values.forEach(this::index);
+            }
+        }
+
+        boolean isScalar() {
+            return Objects.isNull(description);
+        }
+
+        private int index(final Object value) {
+            return indexes.computeIfAbsent(value, v -> {
+                values.add(v);
+                multiplicities.add(0);
+                return values.size() - 1;
+            });
+        }
+
+        /**
+         * @param value value of field in valid object
+         * @return numbers of value or child objects with equal objects
+         */
+        int[] encode(final Object value) {
+            if (isScalar()) {
+                return new int[] { indexes.get(value) };
+            }
+            final int[] encoded = object
+                    ? Objects.isNull(value) ? new int[0] : new int[] { index(value) }
+                    : ((List<?>) value).stream().mapToInt(this::index).toArray();
+            for (final int index : encoded) {
+                multiplicities.set(index, Math.max(multiplicities.get(index),
+                        (int) Arrays.stream(encoded).filter(e -> e == index).count()));
+            }
+            return encoded;
+        }
+
+        /**
+         * Calculate positions of object field when all child objects are known, as
+         * generator does
+         */
+        void close() {
+            if (!isScalar()) {
+                positions = Math.min(multiplicities.stream().mapToInt(Integer::intValue).sum(), max);
+                optional = Math.min(min, positions) < positions;
+            }
+        }
+
+        /**
+         * @param encoded numbers of value or child objects with equal objects
+         * @return distinct facts of field in object
+         */
+        int[] facts(final int[] encoded) {
+            final IntStream facts = Arrays.stream(encoded).distinct();
+            return optional && encoded.length < positions
+                    ? IntStream.concat(facts, IntStream.of(values.size())).toArray()
+                    : facts.toArray();
+        }
+
+        /**
+         * @return number of facts of field
+         */
+        int size() {
+            return optional ? values.size() + 1 : values.size();
+        }
+
+        Fact fact(final int fact) {
+            return fact == values.size() ? new Fact(name, null, true) : new Fact(name, values.get(fact), false);
+        }
+    }
+
+    /**
+     * Pairs of facts of two fields or of one object field. Pairs of one field are
+     * unordered pairs of different facts and are numbered in upper triangle
+     */
+    private static final class FieldPairs {
+        private final int first;
+        private final int second;
+        private final int firstSize;
+        private final int secondSize;
+        /**
+         * Number of possible pairs
+         */
+        private final int space;
+        private final BitSet covered = new BitSet();
+        private final BitSet forbidden = new BitSet();
+
+        FieldPairs(final String path, final Column[] columns, final int first, final int second) {
+            this.first = first;
+            this.second = second;
+            this.firstSize = columns[first].size();
+            this.secondSize = columns[second].size();
+            final long pairs = first == second ? (long) firstSize * (firstSize - 1) / 2
+                    : (long) firstSize * secondSize;
+            Validate.isTrue(pairs <= Integer.MAX_VALUE, TOO_MANY_PAIRS, path, columns[first].name,
+                    columns[second].name, pairs);
+            this.space = (int) pairs;
+        }
+
+        /**
+         * @param a fact of first field
+         * @param b fact of second field, more than a for one field
+         * @return number of pair
+         */
+        int index(final int a, final int b) {
+            return first == second ? (int) (start(a) + b - a - 1) : a * secondSize + b;
+        }
+
+        /**
+         * @param pair number of pair
+         * @return facts of first and second field
+         */
+        int[] facts(final int pair) {
+            if (first != second) {
+                return new int[] { pair / secondSize, pair % secondSize };
+            }
+            int a = 0;
+            while (start(a + 1) <= pair) {
+                a++;
+            }
+            return new int[] { a, (int) (pair - start(a) + a + 1) };
+        }
+
+        /**
+         * @param a fact of field
+         * @return number of first pair of fact with facts after it
+         */
+        private long start(final int a) {
+            return (long) a * (2L * firstSize - a - 1) / 2;
+        }
+
+        void forbid(final BitSet firsts, final BitSet seconds) {
+            for (int a = firsts.nextSetBit(0); a >= 0; a = firsts.nextSetBit(a + 1)) {
+                for (int b = seconds.nextSetBit(0); b >= 0; b = seconds.nextSetBit(b + 1)) {
+                    if (first != second) {
+                        forbidden.set(index(a, b));
+                    } else if (a != b) {
+                        forbidden.set(index(Math.min(a, b), Math.max(a, b)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Facts matching conditions of constraints of one level
+     */
+    private static final class Constraints {
+        private final BitSet[][] firsts;
+        private final BitSet[][] seconds;
+
+        Constraints(final List<RestrictionIndex.Constraint> constraints, final Column[] columns) {
+            firsts = new BitSet[constraints.size()][];
+            seconds = new BitSet[constraints.size()][];
+            for (int k = 0; k < constraints.size(); k++) {
+                firsts[k] = matching(constraints.get(k).getFirst(), columns);
+                seconds[k] = matching(constraints.get(k).getSecond(), columns);
+            }
+        }
+
+        private static BitSet[] matching(final RestrictionIndex.Condition condition, final Column[] columns) {
+            final BitSet[] matching = new BitSet[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                matching[c] = new BitSet();
+                if (columns[c].name.equals(condition.getPath().get(0))) {
+                    for (int fact = 0; fact < columns[c].values.size(); fact++) {
+                        if (ForbiddenPairs.matches(columns[c].values.get(fact), condition.getPath(), 1,
+                                condition.getValue())) {
+                            matching[c].set(fact);
+                        }
+                    }
+                }
+            }
+            return matching;
+        }
+
+        boolean isEmpty() {
+            return firsts.length == 0;
+        }
+
+        /**
+         * Mark forbidden pairs of fields
+         *
+         * @param pairs pairs of fields
+         */
+        void forbid(final FieldPairs pairs) {
+            for (int k = 0; k < firsts.length; k++) {
+                pairs.forbid(firsts[k][pairs.first], seconds[k][pairs.second]);
+                pairs.forbid(seconds[k][pairs.first], firsts[k][pairs.second]);
+            }
+        }
+
+        boolean isForbidden(final int column, final int fact, final int otherColumn, final int otherFact) {
+            for (int k = 0; k < firsts.length; k++) {
+                if (firsts[k][column].get(fact) && seconds[k][otherColumn].get(otherFact)
+                        || seconds[k][column].get(fact) && firsts[k][otherColumn].get(otherFact)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
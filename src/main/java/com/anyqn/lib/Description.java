@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.NonNull;
+
+/**
+ * Validated immutable description of object built by
+ * {@link DescriptionLoader}, generator uses it without copying
+ */
+final class Description extends AbstractMap<String, List<Object>> {
+
+    private final Map<String, List<Object>> fields;
+
+    /**
+     * @param fields validated fields in order of description, map and lists are
+     *               not copied
+     */
+    Description(@NonNull final LinkedHashMap<String, List<Object>> fields) {
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    public Set<Entry<String, List<Object>>> entrySet() {
+        return fields.entrySet();
+    }
+
+    @Override
+    public List<Object> get(final Object key) {
+        return fields.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return fields.containsKey(key);
+    }
+
+}
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.commons.lang3.Validate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import lombok.NonNull;
+
+/**
+ * Loader of generation request from json with properties and source
+ * description. Json is read by streaming parser, field names and lists of
+ * values are validated while they are read and description is built once, so
+ * generator uses it without conversion and copying
+ */
+public final class DescriptionLoader {
+
+    private static final String PROPERTIES = "properties";
+    private static final String SOURCE = "source";
+    private static final String MIN_RESTRICTIONS = "minRestrictions";
+    private static final String MAX_RESTRICTIONS = "maxRestrictions";
+    private static final String OBJECTS = "objects";
+    private static final String CONSTRAINTS = "constraints";
+    private static final String CONDITIONS = "conditions";
+    private static final String FIELD_PATH = "fieldPath";
+    private static final String VALUE = "value";
+    private static final String FOR_FIELD_S_NEED_LIST_OF_POSSIBLE_VALUES = "For field [%s] need list of possible values";
+    private static final String DUPLICATE_FIELD = "Duplicate field [%s]";
+    private static final String UNEXPECTED_TOKEN = "Unexpected token [%s] at %s";
+    private static final String UNKNOWN_FIELD = "Unknown field [%s] at %s";
+    private static final String NEED_SOURCE = "Need source description";
+
+    private final JsonFactory factory;
+
+    public DescriptionLoader() {
+        this(new JsonFactory());
+    }
+
+    /**
+     * @param factory factory of json parsers
+     */
+    public DescriptionLoader(@NonNull final JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    public @NonNull GenerationRequest load(@NonNull final Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return load(input);
+        }
+    }
+
+    public @NonNull GenerationRequest load(@NonNull final InputStream input) throws IOException {
+        try (JsonParser parser = factory.createParser(input)) {
+            return load(parser);
+        }
+    }
+
+    public @NonNull GenerationRequest load(@NonNull final Reader reader) throws IOException {
+        try (JsonParser parser = factory.createParser(reader)) {
+            return load(parser);
+        }
+    }
+
+    /**
+     * Read json object with properties and source description, other fields are
+     * skipped. Properties are optional
+     *
+     * @param parser parser at start of object or before it
+     * @return description with restrictions
+     * @throws IOException on read or json syntax error
+     */
+    public @NonNull GenerationRequest load(@NonNull final JsonParser parser) throws IOException {
+        expect(parser, next(parser), JsonToken.START_OBJECT);
+        Properties properties = new Properties();
+        Map<String, List<Object>> source = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            parser.nextToken();
+            if (PROPERTIES.equals(name)) {
+                properties = readProperties(parser);
+            } else if (SOURCE.equals(name)) {
+                source = readDescription(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        Validate.isTrue(!Objects.isNull(source), NEED_SOURCE);
+        return new GenerationRequest(source, properties);
+    }
+
+    /**
+     * Read source description only
+     *
+     * @param parser parser at start of object or before it
+     * @return description of generated object
+     * @throws IOException on read or json syntax error
+     */
+    public @NonNull Map<String, List<Object>> loadDescription(@NonNull final JsonParser parser) throws IOException {
+        next(parser);
+        return readDescription(parser);
+    }
+
+    private static JsonToken next(final JsonParser parser) throws IOException {
+        return parser.currentToken() == null ? parser.nextToken() : parser.currentToken();
+    }
+
+    /**
+     * Read description of object, every field must have valid name and list of
+     * values, objects in lists are read as descriptions of child objects
+     *
+     * @param parser parser at start of object
+     * @return validated description
+     */
+    private Description readDescription(final JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        final LinkedHashMap<String, List<Object>> fields = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = PairwiseJsonGenerator.castField(parser.getCurrentName());
+            Validate.isTrue(!fields.containsKey(name), DUPLICATE_FIELD, name);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException(String.format(FOR_FIELD_S_NEED_LIST_OF_POSSIBLE_VALUES, name));
+            }
+            final List<Object> values = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                values.add(parser.currentToken() == JsonToken.START_OBJECT ? readDescription(parser)
+                        : readValue(parser));
+            }
+            fields.put(name, Collections.unmodifiableList(values));
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+        return new Description(fields);
+    }
+
+    /**
+     * Read any json value as untyped object
+     *
+     * @param parser parser at first token of value
+     * @return string, number, boolean, null, list or map
+     */
+    private static Object readValue(final JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+        case START_ARRAY:
+            final List<Object> list = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                list.add(readValue(parser));
+            }
+            return list;
+        case START_OBJECT:
+            final Map<String, Object> map = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                map.put(name, readValue(parser));
+            }
+            return map;
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+            return parser.getNumberValue();
+        case VALUE_NUMBER_FLOAT:
+            return parser.getDoubleValue();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            throw new IllegalArgumentException(
+                    String.format(UNEXPECTED_TOKEN, parser.currentToken(), parser.getCurrentLocation()));
+        }
+    }
+
+    private static Properties readProperties(final JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        final Properties properties = new Properties();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            parser.nextToken();
+            if (MIN_RESTRICTIONS.equals(name)) {
+                properties.setMinRestrictions(readRestrictions(parser));
+            } else if (MAX_RESTRICTIONS.equals(name)) {
+                properties.setMaxRestrictions(readRestrictions(parser));
+            } else if (OBJECTS.equals(name)) {
+                properties.setObjects(new HashSet<>());
+                expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    expect(parser, parser.currentToken(), JsonToken.VALUE_STRING);
+                    properties.getObjects().add(parser.getText());
+                }
+            } else if (CONSTRAINTS.equals(name)) {
+                properties.setConstraints(readConstraints(parser));
+            } else {
+                throw new IllegalArgumentException(String.format(UNKNOWN_FIELD, name, parser.getCurrentLocation()));
+            }
+        }
+        return properties;
+    }
+
+    private static List<Properties.Restriction> readRestrictions(final JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        final List<Properties.Restriction> restrictions = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+            final Properties.Restriction restriction = new Properties.Restriction();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                if (FIELD_PATH.equals(name)) {
+                    expect(parser, parser.currentToken(), JsonToken.VALUE_STRING);
+                    restriction.setFieldPath(parser.getText());
+                } else if (VALUE.equals(name)) {
+                    expect(parser, parser.currentToken(), JsonToken.VALUE_NUMBER_INT);
+                    restriction.setValue(parser.getIntValue());
+                } else {
+                    throw new IllegalArgumentException(
+                            String.format(UNKNOWN_FIELD, name, parser.getCurrentLocation()));
+                }
+            }
+            restrictions.add(restriction);
+        }
+        return restrictions;
+    }
+
+    private static List<Properties.Constraint> readConstraints(final JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        final List<Properties.Constraint> constraints = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+            final Properties.Constraint constraint = new Properties.Constraint();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                if (!CONDITIONS.equals(name)) {
+                    throw new IllegalArgumentException(
+                            String.format(UNKNOWN_FIELD, name, parser.getCurrentLocation()));
+                }
+                expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    constraint.getConditions().add(readCondition(parser));
+                }
+            }
+            constraints.add(constraint);
+        }
+        return constraints;
+    }
+
+    private static Properties.Condition readCondition(final JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        final Properties.Condition condition = new Properties.Condition();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            parser.nextToken();
+            if (FIELD_PATH.equals(name)) {
+                expect(parser, parser.currentToken(), JsonToken.VALUE_STRING);
+                condition.setFieldPath(parser.getText());
+            } else if (VALUE.equals(name)) {
+                condition.setValue(readValue(parser));
+            } else {
+                throw new IllegalArgumentException(String.format(UNKNOWN_FIELD, name, parser.getCurrentLocation()));
+            }
+        }
+        return condition;
+    }
+
+    private static void expect(final JsonParser parser, final JsonToken actual, final JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException(String.format(UNEXPECTED_TOKEN, actual, parser.getCurrentLocation()));
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.commons.lang3.Validate;
+
+import lombok.NonNull;
+
+/**
+ * Pairs of values of different params which can not be in one row of covering
+ * array. Every value of every param is a literal, forbidden literals are stored
+ * in bitset of literal. Pairs are added before building of covering array and
+ * only read after it
+ */
+public final class ForbiddenPairs {
+
+    private static final String COLUMN_VALIDATION_MESSAGE = "Wrong param [%s]";
+    private static final String VALUE_VALIDATION_MESSAGE = "Wrong value [%s] of param [%s]";
+    private static final String SAME_COLUMN_VALIDATION_MESSAGE = "Pair of values of one param [%s]";
+
+    /**
+     * Number of first literal of every param
+     */
+    private final int[] offsets;
+    private final int[] domainSizes;
+    private final Map<Integer, BitSet> forbidden = new HashMap<>();
+
+    /**
+     * @param domainSizes number of possible values of every param
+     */
+    public ForbiddenPairs(@NonNull final int[] domainSizes) {
+        this.domainSizes = domainSizes.clone();
+        this.offsets = new int[domainSizes.length];
+        for (int column = 1; column < domainSizes.length; column++) {
+            offsets[column] = offsets[column - 1] + domainSizes[column - 1];
+        }
+    }
+
+    /**
+     * Forbid pair of values
+     *
+     * @param column      number of param
+     * @param value       value of param
+     * @param otherColumn number of other param
+     * @param otherValue  value of other param
+     */
+    public void forbid(final int column, final int value, final int otherColumn, final int otherValue) {
+        final int literal = literal(column, value);
+        final int otherLiteral = literal(otherColumn, otherValue);
+        Validate.isTrue(column != otherColumn, SAME_COLUMN_VALIDATION_MESSAGE, column);
+        forbidden.computeIfAbsent(literal, k -> new BitSet()).set(otherLiteral);
+        forbidden.computeIfAbsent(otherLiteral, k -> new BitSet()).set(literal);
+    }
+
+    /**
+     * @return true if there are no forbidden pairs
+     */
+    public boolean isEmpty() {
+        return forbidden.isEmpty();
+    }
+
+    /**
+     * @param column      number of param
+     * @param value       value of param
+     * @param otherColumn number of other param
+     * @param otherValue  value of other param
+     * @return true if values can not be in one row
+     */
+    public boolean isForbidden(final int column, final int value, final int otherColumn, final int otherValue) {
+        if (forbidden.isEmpty()) {
+            return false;
+        }
+        final BitSet literals = forbidden.get(offsets[column] + value);
+        return literals != null && literals.get(offsets[otherColumn] + otherValue);
+    }
+
+    /**
+     * @param row row of covering array, {@link CoverageEngine#FREE} cells are
+     *            not checked
+     * @return true if row has no forbidden pairs
+     */
+    public boolean allows(@NonNull final int[] row) {
+        for (int column = 0; column < row.length; column++) {
+            for (int other = column + 1; other < row.length && row[column] != CoverageEngine.FREE; other++) {
+                if (row[other] != CoverageEngine.FREE && isForbidden(column, row[column], other, row[other])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int literal(final int column, final int value) {
+        Validate.isTrue(column >= 0 && column < domainSizes.length, COLUMN_VALIDATION_MESSAGE, column);
+        Validate.isTrue(value >= 0 && value < domainSizes[column], VALUE_VALIDATION_MESSAGE, value, column);
+        return offsets[column] + value;
+    }
+
+    /**
+     * Resolve constraints checked on one level to forbidden pairs of values and
+     * variants numbers. Condition on field of child object is true for every
+     * variant of child object containing value by relative path
+     *
+     * @param constraints constraints checked on level
+     * @param fields      fields of level
+     * @param domainSizes domain sizes of covering array params
+     * @return forbidden pairs of level
+     */
+    static ForbiddenPairs of(@NonNull final List<RestrictionIndex.Constraint> constraints,
+            @NonNull final PlanNode.Field[] fields, @NonNull final int[] domainSizes) {
+        final ForbiddenPairs pairs = new ForbiddenPairs(domainSizes);
+        for (final RestrictionIndex.Constraint constraint : constraints) {
+            final List<int[]> first = literals(constraint.getFirst(), fields);
+            final List<int[]> second = literals(constraint.getSecond(), fields);
+            for (final int[] literal : first) {
+                for (final int[] otherLiteral : second) {
+                    if (literal[0] != otherLiteral[0]) {
+                        pairs.forbid(literal[0], literal[1], otherLiteral[0], otherLiteral[1]);
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Find columns and values for which condition is true
+     *
+     * @param condition condition with path relative to level
+     * @param fields    fields of level
+     * @return pairs of column and value
+     */
+    private static List<int[]> literals(final RestrictionIndex.Condition condition, final PlanNode.Field[] fields) {
+        final List<int[]> literals = new ArrayList<>();
+        final List<String> path = condition.getPath();
+        for (final PlanNode.Field field : fields) {
+            if (!field.getName().equals(path.get(0))) {
+                continue;
+            }
+            if (field.isScalar() && path.size() == 1) {
+                for (int value = 0; value < field.getValues().size(); value++) {
+                    if (Objects.equals(field.getValues().get(value), condition.getValue())) {
+                        literals.add(new int[] { field.getColumn(), value });
+                    }
+                }
+            } else if (!field.isScalar() && path.size() > 1) {
+                for (int variant = 0; variant < field.getVariants().size(); variant++) {
+                    if (matches(field.getVariants().getRow(variant), path, 1, condition.getValue())) {
+                        for (int position = 0; position < field.getPositions(); position++) {
+                            literals.add(new int[] { field.getColumn() + position,
+                                    position < field.getMandatory() ? variant : variant + 1 });
+                        }
+                    }
+                }
+            }
+        }
+        return literals;
+    }
+
+    /**
+     * @param node  generated object, list of objects or value
+     * @param path  path of field
+     * @param from  number of first not resolved segment of path
+     * @param value value of condition
+     * @return true if some value by path is equal to value of condition
+     */
+    static boolean matches(final Object node, final List<String> path, final int from, final Object value) {
+        if (from == path.size()) {
+            return Objects.equals(node, value);
+        } else if (node instanceof List) {
+            return ((List<?>) node).stream().anyMatch(element -> matches(element, path, from, value));
+        } else if (node instanceof Map) {
+            return matches(((Map<?, ?>) node).get(path.get(from)), path, from + 1, value);
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Generated variants of object stored as columns of values and child objects
+ * variants numbers. Fields descriptions, values and child objects variants are
+ * shared by all rows, rows are available as read-only Map views which resolve
+ * values on access
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class GeneratedSuite {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final String ROW_INDEX_OUT_OF_BOUNDS = "Row index [%s] out of bounds, suite size is [%s]";
+
+    /**
+     * Description of columns
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @NonNull
+    private final PlanNode node;
+    /**
+     * Numbers of values and variants by column and row
+     */
+    @NonNull
+    private final int[][] columns;
+    /**
+     * Number of generated variants
+     */
+    private final int size;
+
+    /**
+     * Collect collapsed rows to columns
+     *
+     * @param node description of columns
+     * @param rows collapsed rows
+     * @return suite
+     */
+    static GeneratedSuite of(@NonNull final PlanNode node, @NonNull final Stream<int[]> rows) {
+        final Builder builder = new Builder(node);
+        rows.forEachOrdered(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * @return number of generated variants
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get generated variant
+     *
+     * @param index number of variant
+     * @return read-only view of generated variant
+     */
+    public @NonNull Map<String, Object> getRow(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format(ROW_INDEX_OUT_OF_BOUNDS, index, size));
+        }
+        return new Row(index);
+    }
+
+    /**
+     * @return read-only list view of generated variants
+     */
+    public @NonNull List<Map<String, Object>> getRows() {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(final int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return stream of read-only views of generated variants
+     */
+    public @NonNull Stream<Map<String, Object>> stream() {
+        return IntStream.range(0, size).mapToObj(this::getRow);
+    }
+
+    /**
+     * Get number of value or variant
+     *
+     * @param row    number of variant
+     * @param column column of slot table
+     * @return number of value or child object variant
+     */
+    int getCell(final int row, final int column) {
+        return columns[column][row];
+    }
+
+    /**
+     * Read-only view of one generated variant
+     */
+    @RequiredArgsConstructor
+    private final class Row extends AbstractMap<String, Object> {
+
+        private final int index;
+
+        @Override
+        public Object get(final Object key) {
+            final PlanNode.Field field = node.getField(key);
+            return field == null ? null : value(field);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return node.getField(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return node.getPresentFields().size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final Iterator<PlanNode.Field> fields = node.getPresentFields().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            final PlanNode.Field field = fields.next();
+                            return new SimpleImmutableEntry<>(field.getName(), value(field));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return Row.this.size();
+                }
+            };
+        }
+
+        private Object value(final PlanNode.Field field) {
+            return field.value(column -> columns[column][index]);
+        }
+    }
+
+    /**
+     * Collector of rows to columns
+     */
+    @RequiredArgsConstructor
+    static final class Builder {
+        @NonNull
+        private final PlanNode node;
+        private int[][] columns;
+        private int size;
+        private int capacity;
+
+        void add(final int[] row) {
+            if (columns == null) {
+                capacity = INITIAL_CAPACITY;
+                columns = new int[node.getWidth()][capacity];
+            } else if (size == capacity) {
+                capacity *= 2;
+                for (int column = 0; column < columns.length; column++) {
+                    columns[column] = Arrays.copyOf(columns[column], capacity);
+                }
+            }
+            for (int column = 0; column < columns.length; column++) {
+                columns[column][size] = row[column];
+            }
+            size++;
+        }
+
+        GeneratedSuite build() {
+            final int[][] result = new int[node.getWidth()][];
+            for (int column = 0; column < result.length; column++) {
+                result[column] = columns == null ? new int[0] : Arrays.copyOf(columns[column], size);
+            }
+            return new GeneratedSuite(node, result, size);
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Limits of prioritized generation, generation stops when any limit is reached
+ */
+@Value
+@Builder
+public class GenerationBudget {
+
+    /**
+     * Budget without limits, all variants are ordered
+     */
+    public static final GenerationBudget UNLIMITED = GenerationBudget.builder().build();
+
+    /**
+     * Max number of generated variants
+     */
+    @Builder.Default
+    int maxRows = Integer.MAX_VALUE;
+    /**
+     * Max time of ordering of variants, including generation of rows and
+     * collection of their pairs, which are not interrupted: only selection of
+     * variants is stopped by it
+     */
+    @NonNull
+    @Builder.Default
+    Duration timeBudget = Duration.ofNanos(Long.MAX_VALUE);
+
+}
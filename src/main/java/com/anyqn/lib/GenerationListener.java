@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+/**
+ * Listener of generation process events. Every level of generated tree is
+ * reported by dotted path of object field, root object has empty path. Events
+ * can be reported from different threads in parallel mode
+ */
+public interface GenerationListener {
+
+    /**
+     * Path of root object
+     */
+    String ROOT_PATH = "";
+
+    /**
+     * Listener without reaction to events
+     */
+    GenerationListener NONE = new GenerationListener() {
+    };
+
+    /**
+     * Level of generated tree is compiled, child objects are already generated
+     *
+     * @param path        path of object
+     * @param parameters  number of pairwise generator params (fields and positions
+     *                    of child objects)
+     * @param domainSizes number of possible values of every param
+     */
+    default void onLevel(final String path, final int parameters, final int[] domainSizes) {
+    }
+
+    /**
+     * Pairwise generator of level is built
+     *
+     * @param path  path of object
+     * @param rows  number of generated rows
+     * @param nanos time of generator building
+     */
+    default void onGeneratorBuilt(final String path, final int rows, final long nanos) {
+    }
+
+    /**
+     * All generated rows of level are collapsed to values and child objects
+     * variants, for root object it is reported when all rows are consumed
+     *
+     * @param path  path of object
+     * @param rows  number of collapsed rows
+     * @param nanos time of collapsing
+     */
+    default void onCollapse(final String path, final int rows, final long nanos) {
+    }
+
+    /**
+     * Collapsed rows are deduplicated, reported when all rows are consumed
+     *
+     * @param path path of object
+     * @param in   number of collapsed rows
+     * @param out  number of distinct rows
+     */
+    default void onDeduplication(final String path, final int in, final int out) {
+    }
+
+    /**
+     * Variants of child object are taken from subtree cache
+     *
+     * @param path path of object
+     */
+    default void onSubtreeCacheHit(final String path) {
+    }
+
+}
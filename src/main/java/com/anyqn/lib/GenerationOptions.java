@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.concurrent.ForkJoinPool;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Options of generation process, options except of coverage engine do not
+ * change generated result
+ */
+@Value
+@Builder(toBuilder = true)
+public class GenerationOptions {
+
+    /**
+     * Generate subtrees of sibling object fields in parallel fork-join tasks
+     */
+    boolean parallel;
+    /**
+     * Pool for parallel generation
+     */
+    @NonNull
+    @Builder.Default
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    /**
+     * Cache of generated child objects variants shared between generations, if
+     * it is not set identical subtrees are memoized only during one compilation
+     */
+    SubtreeCache subtreeCache;
+    /**
+     * Engine of covering arrays, {@link PairwiserCoverageEngine} by default,
+     * {@link IpogCoverageEngine} is built in engine without dependency on
+     * pairwiser library
+     */
+    @NonNull
+    @Builder.Default
+    CoverageEngine engine = new PairwiserCoverageEngine();
+    /**
+     * Listener of generation events and timings
+     */
+    @NonNull
+    @Builder.Default
+    GenerationListener listener = GenerationListener.NONE;
+
+}
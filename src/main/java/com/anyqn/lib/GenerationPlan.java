@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.Validate;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Compiled description of generated objects. Plan is immutable, so it can be
+ * reused for repeated or concurrent generation without description validation
+ * and recalculation of child objects variants
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class GenerationPlan {
+
+    private static final String SHARD_COUNT_VALIDATION_MESSAGE = "Shards count [%s] must be more than zero";
+    private static final String SHARD_INDEX_VALIDATION_MESSAGE = "Shard index [%s] must be from zero to shards count [%s]";
+    private static final String SLICE_VALIDATION_MESSAGE = "Slice from [%s] to [%s] must be not negative and ordered";
+
+    @Getter(AccessLevel.PACKAGE)
+    @NonNull
+    private final PlanNode root;
+
+    /**
+     * Generate all possible variants of described Map
+     *
+     * @return list of possible variants of generated map,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull List<Map<String, Object>> generate() {
+        return stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Lazily generate all possible variants of described Map
+     *
+     * @return stream of possible variants of generated map,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull Stream<Map<String, Object>> stream() {
+        return root.stream();
+    }
+
+    /**
+     * Generate one shard of all possible variants of described Map. Variants are
+     * split to contiguous shards of equal size in order of {@link #generate()},
+     * generation does not depend on JVM, so shards generated by different workers
+     * together are equal to the full suite
+     *
+     * @param shardIndex number of shard from zero
+     * @param shardCount number of shards
+     * @return possible variants of generated map in shard,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull List<Map<String, Object>> generate(final int shardIndex, final int shardCount) {
+        return stream(shardIndex, shardCount).collect(Collectors.toList());
+    }
+
+    /**
+     * Lazily generate one shard of all possible variants of described Map, see
+     * {@link #generate(int, int)}. Number of variants is counted first, then
+     * rows are generated again and only rows of shard are kept and converted to
+     * maps. Every shard still collapses and deduplicates rows before its own
+     * rows, use {@link #slice(long, long)} with bounds from
+     * {@link #count()} to count variants once for all shards
+     *
+     * @param shardIndex number of shard from zero
+     * @param shardCount number of shards
+     * @return stream of possible variants of generated map in shard,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull Stream<Map<String, Object>> stream(final int shardIndex, final int shardCount) {
+        Validate.isTrue(shardCount > 0, SHARD_COUNT_VALIDATION_MESSAGE, shardCount);
+        Validate.isTrue(shardIndex >= 0 && shardIndex < shardCount, SHARD_INDEX_VALIDATION_MESSAGE, shardIndex,
+                shardCount);
+        final long count = count();
+        return slice(count * shardIndex / shardCount, count * (shardIndex + 1) / shardCount);
+    }
+
+    /**
+     * Lazily generate variants of described Map from one number to other in
+     * order of {@link #generate()}. Rows before slice are collapsed and
+     * deduplicated but not stored, only rows of slice are converted to maps
+     *
+     * @param from number of first variant
+     * @param to   number of variant after last variant
+     * @return stream of possible variants of generated map in slice,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull Stream<Map<String, Object>> slice(final long from, final long to) {
+        Validate.isTrue(from >= 0 && from <= to, SLICE_VALIDATION_MESSAGE, from, to);
+        return root.rows().skip(from).limit(to - from).map(root::materialize);
+    }
+
+    /**
+     * Count variants of described Map, rows are collapsed and deduplicated but
+     * not stored or converted to maps
+     *
+     * @return number of possible variants of generated map
+     */
+    public long count() {
+        try (Stream<int[]> rows = root.rows()) {
+            return rows.count();
+        }
+    }
+
+    /**
+     * Generate variants of described Map ordered by pair coverage: every next
+     * variant covers as many not covered pairs of values and child objects
+     * variants as possible (lazy greedy selection). Generation stops when
+     * budget is reached, only selected variants are converted to maps. Time
+     * budget starts before rows of suite are generated and their pairs are
+     * collected, these steps are not interrupted, so on large plans budget can
+     * be spent before first variant is selected
+     *
+     * @param budget limits of generation
+     * @return ordered variants and pair coverage reached by them
+     */
+    public @NonNull PrioritizedSuite prioritize(@NonNull final GenerationBudget budget) {
+        final long start = System.nanoTime();
+        final long timeBudget = budget.getTimeBudget().toNanos();
+        final List<int[]> rows = root.rows().collect(Collectors.toList());
+        final PairCoverage coverage = PairCoverage.of(root, rows);
+        final BitSet covered = new BitSet(coverage.getPairsCount());
+        final List<Map<String, Object>> cases = select(coverage, covered, budget.getMaxRows(),
+                () -> System.nanoTime() - start < timeBudget, true).stream()
+                        .map(row -> root.materialize(rows.get(row))).collect(Collectors.toList());
+        return new PrioritizedSuite(cases, rows.size(), covered.cardinality(), coverage.getPairsCount());
+    }
+
+    /**
+     * Generate minimal variants of described Map covering all pairs of values
+     * and child objects variants covered by full suite. Variants are selected by
+     * greedy set cover, then every selected variant whose pairs are all covered
+     * by other selected variants is removed. Variants are returned in order of
+     * {@link #generate()}
+     *
+     * @return variants covering all pairs, number of removed variants and pair
+     *         coverage reached by them
+     */
+    public @NonNull MinimizedSuite minimize() {
+        final List<int[]> rows = root.rows().collect(Collectors.toList());
+        final PairCoverage coverage = PairCoverage.of(root, rows);
+        final List<Integer> selected = select(coverage, new BitSet(coverage.getPairsCount()), Integer.MAX_VALUE,
+                () -> true, false);
+
+        // Rows selected last have least gain, so they are checked for redundancy
+        // first
+        final int[] coverers = new int[coverage.getPairsCount()];
+        selected.forEach(row -> Arrays.stream(coverage.getPairs(row)).forEach(pair -> coverers[pair]++));
+        final BitSet kept = new BitSet(rows.size());
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            final int[] pairs = coverage.getPairs(selected.get(i));
+            if (Arrays.stream(pairs).allMatch(pair -> coverers[pair] > 1)) {
+                Arrays.stream(pairs).forEach(pair -> coverers[pair]--);
+            } else {
+                kept.set(selected.get(i));
+            }
+        }
+        final BitSet covered = new BitSet(coverage.getPairsCount());
+        kept.stream().forEach(row -> coverage.cover(row, covered));
+        final List<Map<String, Object>> cases = kept.stream().mapToObj(row -> root.materialize(rows.get(row)))
+                .collect(Collectors.toList());
+        return new MinimizedSuite(cases, rows.size(), covered.cardinality(), coverage.getPairsCount());
+    }
+
+    /**
+     * Lazy greedy selection of rows. Gain of row only decreases, so old gain is
+     * upper bound of gain. Queue entry is inverted gain in high bits and number
+     * of row in low bits, so rows with equal gain are taken in suite order
+     *
+     * @param coverage  pairs of rows
+     * @param covered   covered pairs, selected rows pairs are added
+     * @param maxRows   maximal number of selected rows
+     * @param running   selection is stopped when it returns false
+     * @param redundant select rows without not covered pairs too
+     * @return numbers of selected rows in order of selection
+     */
+    private static List<Integer> select(final PairCoverage coverage, final BitSet covered, final int maxRows,
+            final BooleanSupplier running, final boolean redundant) {
+        final PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int row = 0; row < coverage.size(); row++) {
+            queue.add(entry(coverage.getPairs(row).length, row));
+        }
+        final List<Integer> selected = new ArrayList<>();
+        while (selected.size() < maxRows && !queue.isEmpty() && running.getAsBoolean()) {
+            final long entry = queue.poll();
+            final int row = (int) entry;
+            final int gain = coverage.gain(row, covered);
+            if (gain < Integer.MAX_VALUE - (int) (entry >>> Integer.SIZE)) {
+                queue.add(entry(gain, row));
+            } else if (gain == 0 && !redundant) {
+                break;
+            } else {
+                coverage.cover(row, covered);
+                selected.add(row);
+            }
+        }
+        return selected;
+    }
+
+    private static long entry(final int gain, final int row) {
+        return (long) (Integer.MAX_VALUE - gain) << Integer.SIZE | row;
+    }
+
+    /**
+     * Generate all possible variants of described Map to compact columnar suite
+     *
+     * @return suite of possible variants of generated map
+     */
+    public @NonNull GeneratedSuite suite() {
+        return root.suite();
+    }
+
+}
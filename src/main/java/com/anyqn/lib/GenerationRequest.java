@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Description of generated objects with restrictions for batch generation
+ */
+@Value
+public class GenerationRequest {
+
+    /**
+     * Map of fields (params) for generation
+     */
+    @NonNull
+    Map<String, List<Object>> metadata;
+    /**
+     * Restrictions to generated result
+     */
+    @NonNull
+    Properties properties;
+
+}
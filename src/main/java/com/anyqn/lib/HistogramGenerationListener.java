@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Listener which aggregates generation events to statistics and histograms by
+ * path of object, listener is thread-safe and can be shared between generations
+ */
+public final class HistogramGenerationListener implements GenerationListener {
+
+    private final Map<String, PathStatistics> paths = new ConcurrentHashMap<>();
+
+    @Override
+    public void onLevel(final String path, final int parameters, final int[] domainSizes) {
+        statistics(path).level(parameters, domainSizes);
+    }
+
+    @Override
+    public void onGeneratorBuilt(final String path, final int rows, final long nanos) {
+        statistics(path).generatorBuilt(rows, nanos);
+    }
+
+    @Override
+    public void onCollapse(final String path, final int rows, final long nanos) {
+        statistics(path).collapse(nanos);
+    }
+
+    @Override
+    public void onDeduplication(final String path, final int in, final int out) {
+        statistics(path).deduplication(in, out);
+    }
+
+    @Override
+    public void onSubtreeCacheHit(final String path) {
+        statistics(path).cacheHit();
+    }
+
+    /**
+     * @return statistics by path of object
+     */
+    public @NonNull Map<String, PathStatistics> getPaths() {
+        return Collections.unmodifiableMap(paths);
+    }
+
+    /**
+     * Find paths with most time spent for generator building and collapsing
+     *
+     * @param limit max number of paths
+     * @return statistics of hottest paths
+     */
+    public @NonNull List<PathStatistics> hottest(final int limit) {
+        return paths.values().stream().sorted(Comparator.comparingLong(PathStatistics::getTotalNanos).reversed())
+                .limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * Remove all collected statistics
+     */
+    public void clear() {
+        paths.clear();
+    }
+
+    private PathStatistics statistics(final String path) {
+        return paths.computeIfAbsent(path, PathStatistics::new);
+    }
+
+    /**
+     * Aggregated events of one path
+     */
+    @RequiredArgsConstructor
+    public static final class PathStatistics {
+        @Getter
+        @NonNull
+        private final String path;
+        /**
+         * Number of compiled levels
+         */
+        private long levels;
+        /**
+         * Max number of pairwise generator params
+         */
+        private int maxParameters;
+        /**
+         * Max number of possible values of one param
+         */
+        private int maxDomainSize;
+        /**
+         * Number of rows of built pairwise generators
+         */
+        @Getter
+        private final Histogram rows = new Histogram();
+        /**
+         * Time of pairwise generators building
+         */
+        @Getter
+        private final Histogram generatorNanos = new Histogram();
+        /**
+         * Time of rows collapsing
+         */
+        @Getter
+        private final Histogram collapseNanos = new Histogram();
+        /**
+         * Number of rows before deduplication
+         */
+        private long deduplicationIn;
+        /**
+         * Number of rows after deduplication
+         */
+        private long deduplicationOut;
+        /**
+         * Number of subtrees taken from cache
+         */
+        private long cacheHits;
+
+        private synchronized void level(final int parameters, final int[] domainSizes) {
+            levels++;
+            maxParameters = Math.max(maxParameters, parameters);
+            for (final int domainSize : domainSizes) {
+                maxDomainSize = Math.max(maxDomainSize, domainSize);
+            }
+        }
+
+        private void generatorBuilt(final int generatedRows, final long nanos) {
+            rows.record(generatedRows);
+            generatorNanos.record(nanos);
+        }
+
+        private void collapse(final long nanos) {
+            collapseNanos.record(nanos);
+        }
+
+        private synchronized void deduplication(final int in, final int out) {
+            deduplicationIn += in;
+            deduplicationOut += out;
+        }
+
+        private synchronized void cacheHit() {
+            cacheHits++;
+        }
+
+        public synchronized long getLevels() {
+            return levels;
+        }
+
+        public synchronized int getMaxParameters() {
+            return maxParameters;
+        }
+
+        public synchronized int getMaxDomainSize() {
+            return maxDomainSize;
+        }
+
+        public synchronized long getDeduplicationIn() {
+            return deduplicationIn;
+        }
+
+        public synchronized long getDeduplicationOut() {
+            return deduplicationOut;
+        }
+
+        public synchronized long getCacheHits() {
+            return cacheHits;
+        }
+
+        /**
+         * @return total time of generators building and collapsing
+         */
+        public long getTotalNanos() {
+            return generatorNanos.getSum() + collapseNanos.getSum();
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(
+                    "%s: levels=%d, params=%d, maxDomain=%d, rows=%s, generatorNanos=%s, collapseNanos=%s, dedup=%d->%d, cacheHits=%d",
+                    path, levels, maxParameters, maxDomainSize, rows, generatorNanos, collapseNanos,
+                    deduplicationIn, deduplicationOut, cacheHits);
+        }
+    }
+
+    /**
+     * Histogram with power of two buckets
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = Long.SIZE;
+
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        /**
+         * Add value to histogram
+         *
+         * @param value not negative value
+         */
+        public synchronized void record(final long value) {
+            buckets[bucket(value)]++;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getSum() {
+            return sum;
+        }
+
+        public synchronized long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        public synchronized long getMax() {
+            return max;
+        }
+
+        /**
+         * Estimate percentile by upper bound of bucket
+         *
+         * @param percentile percentile from 0 to 100
+         * @return upper bound of bucket with percentile
+         */
+        public synchronized long percentile(final double percentile) {
+            final long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += buckets[bucket];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(max, (1L << bucket) - 1);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return number of values by bucket, bucket N contains values from 2^(N-1) to
+         *         2^N - 1
+         */
+        public synchronized long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        private static int bucket(final long value) {
+            return value <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(value);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("[count=%d, min=%d, p50=%d, p99=%d, max=%d]", count, getMin(), percentile(50),
+                    percentile(99), max);
+        }
+    }
+
+}
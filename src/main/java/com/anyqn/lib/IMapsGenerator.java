@@ -17,6 +17,7 @@ package com.anyqn.lib;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import lombok.NonNull;
 
@@ -27,9 +28,26 @@ public interface IMapsGenerator {
      *
      * @param metadata   map of fields (params) for generation
      * @param properties restrictions to generated result
-     * @return list of possible variants of generated map
+     * @return list of possible variants of generated map,
+     *         maps and lists of child objects can be read-only
      */
     @NonNull
     List<Map<String, Object>> generate(@NonNull Map<String, List<Object>> metadata, @NonNull Properties properties);
 
+    /**
+     * Lazily generate all possible variants of input Map with metadata. By
+     * default variants are generated to list, implementations can build them on
+     * demand while stream is consumed
+     *
+     * @param metadata   map of fields (params) for generation
+     * @param properties restrictions to generated result
+     * @return stream of possible variants of generated map,
+     *         maps and lists of child objects can be read-only
+     */
+    @NonNull
+    default Stream<Map<String, Object>> stream(@NonNull final Map<String, List<Object>> metadata,
+            @NonNull final Properties properties) {
+        return generate(metadata, properties).stream();
+    }
+
 }
@@ -0,0 +1,427 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.Validate;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Built in IPOG engine of covering arrays. Array is built param by param:
+ * rows are extended with value of next param covering most of uncovered pairs
+ * (horizontal growth) and then rows are added for pairs which are still not
+ * covered (vertical growth). Uncovered pairs are tracked in bitsets, one bitset
+ * for every previous param, and rows are primitive arrays of values numbers.
+ * Array can be built from seed rows, then seed rows are kept and only their
+ * free cells are set. Forbidden pairs are never placed to one row and are not
+ * required to be covered. With forbidden pairs value is placed to row only if
+ * free cells of row still can be set without forbidden pairs (backtracking
+ * search), so rows are never dropped and every pair which is in some allowed
+ * row is covered
+ */
+@EqualsAndHashCode
+public final class IpogCoverageEngine implements CoverageEngine {
+
+    private static final String DOMAIN_SIZE_LESS_THAN_ZERO = "Domain size of param [%s] less than zero";
+    private static final String SEED_ROW_WIDTH = "Seed row [%s] has wrong number of params";
+    private static final String SEED_ROW_VALUE = "Seed row [%s] has wrong value of param [%s]";
+    private static final String SEED_ROW_FORBIDDEN = "Seed row [%s] has forbidden pair";
+    private static final String SEED_ROW_NOT_COMPLETED = "Seed row [%s] can not be completed without forbidden pairs";
+    private static final String ROW_NOT_COMPLETED = "Row [%s] can not be completed without forbidden pairs";
+
+    @Override
+    public CoverageTable cover(@NonNull final int[] domainSizes) {
+        return extend(domainSizes, Collections.emptyList(), new ForbiddenPairs(domainSizes));
+    }
+
+    @Override
+    public CoverageTable extend(@NonNull final int[] domainSizes, @NonNull final List<int[]> seed,
+            @NonNull final ForbiddenPairs forbidden) {
+        for (int param = 0; param < domainSizes.length; param++) {
+            Validate.isTrue(domainSizes[param] >= 0, DOMAIN_SIZE_LESS_THAN_ZERO, param);
+        }
+        for (int i = 0; i < seed.size(); i++) {
+            Validate.isTrue(seed.get(i).length == domainSizes.length, SEED_ROW_WIDTH, i);
+            for (int param = 0; param < domainSizes.length; param++) {
+                final int value = seed.get(i)[param];
+                Validate.isTrue(value == FREE || value >= 0 && value < domainSizes[param], SEED_ROW_VALUE, i, param);
+            }
+            Validate.isTrue(forbidden.allows(seed.get(i)), SEED_ROW_FORBIDDEN, i);
+        }
+        if (domainSizes.length == 0 || Arrays.stream(domainSizes).anyMatch(size -> size == 0)) {
+            return new Table(new int[0][]);
+        }
+        return new Build(domainSizes, seed, forbidden).build();
+    }
+
+    /**
+     * State of building of one covering array, params are sorted by domain size
+     */
+    private static final class Build {
+        /**
+         * Number of param in input for every sorted param
+         */
+        private final int[] order;
+        /**
+         * Domain sizes of sorted params
+         */
+        private final int[] sizes;
+        private final ForbiddenPairs forbidden;
+        /**
+         * Rows of covering array with values of sorted params
+         */
+        private final List<int[]> rows;
+
+        Build(final int[] domainSizes, final List<int[]> seed, final ForbiddenPairs forbidden) {
+            // Params with more values go first, this gives less rows
+            this.order = IntStream.range(0, domainSizes.length).boxed()
+                    .sorted(Comparator.comparingInt(param -> -domainSizes[param])).mapToInt(Integer::intValue)
+                    .toArray();
+            this.sizes = Arrays.stream(order).map(param -> domainSizes[param]).toArray();
+            this.forbidden = forbidden;
+            this.rows = new ArrayList<>(seed.size());
+            for (int i = 0; i < seed.size(); i++) {
+                final int[] seedRow = seed.get(i);
+                final int[] row = Arrays.stream(order).map(param -> seedRow[param]).toArray();
+                Validate.isTrue(complete(row.clone()), SEED_ROW_NOT_COMPLETED, i);
+                rows.add(row);
+            }
+        }
+
+        CoverageTable build() {
+            // Every value of first param must be in some row
+            final boolean[] present = new boolean[sizes[0]];
+            rows.stream().filter(row -> row[0] != FREE).forEach(row -> present[row[0]] = true);
+            for (int value = 0; value < sizes[0]; value++) {
+                if (!present[value]) {
+                    final int[] row = findRow(0, value, 0, value);
+                    if (row != null) {
+                        row[0] = value;
+                    }
+                }
+            }
+            for (int param = 1; param < sizes.length; param++) {
+                extend(param);
+            }
+
+            final int[][] table = new int[rows.size()][];
+            for (int i = 0; i < rows.size(); i++) {
+                final int[] row = rows.get(i);
+                // every row is kept completable while it is built
+                Validate.validState(complete(row), ROW_NOT_COMPLETED, i);
+                table[i] = new int[row.length];
+                for (int param = 0; param < row.length; param++) {
+                    table[i][order[param]] = row[param];
+                }
+            }
+            return new Table(table);
+        }
+
+        /**
+         * Set free cells of row, free cells are not needed for coverage, so first
+         * allowed value is used. With forbidden pairs values are searched with
+         * backtracking, so row is completed if it is possible at all
+         *
+         * @param row row of covering array, row is not changed if it can not be
+         *            completed
+         * @return false if free cells can not be set without forbidden pairs
+         */
+        private boolean complete(final int[] row) {
+            int param = 0;
+            while (param < row.length && row[param] != FREE) {
+                param++;
+            }
+            if (param == row.length) {
+                return true;
+            }
+            for (int value = 0; value < sizes[param]; value++) {
+                if (allows(row, param, value)) {
+                    row[param] = value;
+                    if ((forbidden.isEmpty() || hasAllowedValues(row)) && complete(row)) {
+                        return true;
+                    }
+                }
+            }
+            row[param] = FREE;
+            return false;
+        }
+
+        /**
+         * @param row row of covering array
+         * @return true if every free cell has some allowed value
+         */
+        private boolean hasAllowedValues(final int[] row) {
+            return IntStream.range(0, row.length).allMatch(param -> row[param] != FREE
+                    || IntStream.range(0, sizes[param]).anyMatch(value -> allows(row, param, value)));
+        }
+
+        /**
+         * @param row         row of covering array
+         * @param first       number of first param
+         * @param firstValue  value of first param, cell is free or has this value
+         * @param second      number of second param
+         * @param secondValue value of second param, cell is free or has this value
+         * @return true if row with both values can be completed
+         */
+        private boolean fits(final int[] row, final int first, final int firstValue, final int second,
+                final int secondValue) {
+            if (!allows(row, first, firstValue) || !allows(row, second, secondValue)) {
+                return false;
+            }
+            if (forbidden.isEmpty()) {
+                return true;
+            }
+            if (forbidden.isForbidden(order[first], firstValue, order[second], secondValue)) {
+                return false;
+            }
+            final int[] candidate = row.clone();
+            candidate[first] = firstValue;
+            candidate[second] = secondValue;
+            return complete(candidate);
+        }
+
+        /**
+         * Extend rows with values of next param and add rows for uncovered pairs
+         *
+         * @param param number of added param
+         */
+        private void extend(final int param) {
+            final Pairs uncovered = new Pairs(sizes, param);
+            if (!forbidden.isEmpty()) {
+                for (int previous = 0; previous < param; previous++) {
+                    for (int previousValue = 0; previousValue < sizes[previous]; previousValue++) {
+                        for (int value = 0; value < sizes[param]; value++) {
+                            if (forbidden.isForbidden(order[previous], previousValue, order[param], value)) {
+                                uncovered.remove(previous, previousValue, value);
+                            }
+                        }
+                    }
+                }
+            }
+            rows.forEach(uncovered::cover);
+
+            // Horizontal growth
+            final int[] gains = new int[sizes[param]];
+            for (final int[] row : rows) {
+                if (uncovered.isEmpty()) {
+                    break;
+                }
+                if (row[param] != FREE) {
+                    continue;
+                }
+                for (int value = 0; value < gains.length; value++) {
+                    gains[value] = allows(row, param, value) ? 0 : -1;
+                }
+                for (int previous = 0; previous < param; previous++) {
+                    if (row[previous] != FREE) {
+                        for (int value = 0; value < gains.length; value++) {
+                            if (gains[value] >= 0 && uncovered.contains(previous, row[previous], value)) {
+                                gains[value]++;
+                            }
+                        }
+                    }
+                }
+                // Row without gain stays free for vertical growth
+                for (int best = best(gains); gains[best] > 0; best = best(gains)) {
+                    if (fits(row, param, best, param, best)) {
+                        row[param] = best;
+                        uncovered.cover(row);
+                        break;
+                    }
+                    gains[best] = -1;
+                }
+            }
+
+            // Vertical growth
+            for (int previous = 0; previous < param; previous++) {
+                for (int previousValue = 0; previousValue < sizes[previous]; previousValue++) {
+                    for (int value = 0; value < sizes[param]; value++) {
+                        if (uncovered.contains(previous, previousValue, value)) {
+                            final int[] row = findRow(previous, previousValue, param, value);
+                            if (row == null) {
+                                // pair is not in any row without forbidden pairs
+                                uncovered.remove(previous, previousValue, value);
+                            } else {
+                                row[previous] = previousValue;
+                                row[param] = value;
+                                uncovered.cover(row);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param gains gains of values
+         * @return first value with maximal gain
+         */
+        private static int best(final int[] gains) {
+            int best = 0;
+            for (int value = 1; value < gains.length; value++) {
+                if (gains[value] > gains[best]) {
+                    best = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Find row where pair can be placed or add new row
+         *
+         * @param previous      number of previous param of pair
+         * @param previousValue value of previous param of pair
+         * @param param         number of added param
+         * @param value         value of added param of pair
+         * @return row with free cell of previous param and equal or free cell of
+         *         added param, row with values of pair can be completed, or null
+         *         if pair is not in any row without forbidden pairs
+         */
+        private int[] findRow(final int previous, final int previousValue, final int param, final int value) {
+            int[] candidate = null;
+            for (final int[] row : rows) {
+                if (row[previous] == FREE && (row[param] == value || candidate == null && row[param] == FREE)
+                        && fits(row, previous, previousValue, param, value)) {
+                    if (row[param] == value) {
+                        return row;
+                    }
+                    candidate = row;
+                }
+            }
+            if (candidate == null) {
+                candidate = new int[sizes.length];
+                Arrays.fill(candidate, FREE);
+                if (!fits(candidate, previous, previousValue, param, value)) {
+                    return null;
+                }
+                rows.add(candidate);
+            }
+            return candidate;
+        }
+
+        /**
+         * @param row   row of covering array
+         * @param param number of param
+         * @param value value of param
+         * @return true if value of param has no forbidden pairs with set cells
+         */
+        private boolean allows(final int[] row, final int param, final int value) {
+            if (forbidden.isEmpty()) {
+                return true;
+            }
+            for (int other = 0; other < row.length; other++) {
+                if (other != param && row[other] != FREE
+                        && forbidden.isForbidden(order[param], value, order[other], row[other])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Uncovered pairs of values of added param with values of every previous
+     * param, one bitset for every previous param
+     */
+    private static final class Pairs {
+        private final long[][] bits;
+        private final int size;
+        private final int param;
+        private int remaining;
+
+        Pairs(final int[] sizes, final int param) {
+            this.size = sizes[param];
+            this.param = param;
+            this.bits = new long[param][];
+            for (int previous = 0; previous < param; previous++) {
+                final int pairs = sizes[previous] * size;
+                bits[previous] = new long[(pairs + Long.SIZE - 1) / Long.SIZE];
+                for (int pair = 0; pair < pairs; pair++) {
+                    bits[previous][pair / Long.SIZE] |= 1L << pair;
+                }
+                remaining += pairs;
+            }
+        }
+
+        boolean isEmpty() {
+            return remaining == 0;
+        }
+
+        boolean contains(final int previous, final int previousValue, final int value) {
+            final int pair = previousValue * size + value;
+            return (bits[previous][pair / Long.SIZE] & 1L << pair) != 0;
+        }
+
+        /**
+         * Mark pair as not required
+         *
+         * @param previous      number of previous param
+         * @param previousValue value of previous param
+         * @param value         value of added param
+         */
+        void remove(final int previous, final int previousValue, final int value) {
+            if (contains(previous, previousValue, value)) {
+                final int pair = previousValue * size + value;
+                bits[previous][pair / Long.SIZE] &= ~(1L << pair);
+                remaining--;
+            }
+        }
+
+        /**
+         * Mark pairs of row as covered
+         *
+         * @param row row of covering array
+         */
+        void cover(final int[] row) {
+            if (row[param] == FREE) {
+                return;
+            }
+            for (int previous = 0; previous < param; previous++) {
+                if (row[previous] != FREE) {
+                    remove(previous, row[previous], row[param]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Covering array stored as rows of values numbers
+     */
+    @RequiredArgsConstructor
+    private static final class Table implements CoverageTable {
+        private final int[][] rows;
+
+        @Override
+        public int getRowsCount() {
+            return rows.length;
+        }
+
+        @Override
+        public int[] getRow(final int index) {
+            return rows[index].clone();
+        }
+    }
+
+}
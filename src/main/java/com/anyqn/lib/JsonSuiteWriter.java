@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.function.IntUnaryOperator;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.NonNull;
+
+/**
+ * Writer of generated variants directly to json, variants are written from
+ * numbers of values and child objects variants without building of maps
+ */
+public final class JsonSuiteWriter {
+
+    private static final char NEW_LINE = '\n';
+
+    /**
+     * Layout of written variants
+     */
+    public enum Format {
+        /**
+         * One json object per line
+         */
+        NDJSON,
+        /**
+         * One json array of objects
+         */
+        ARRAY
+    }
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter valueWriter;
+    private final Format format;
+
+    public JsonSuiteWriter(@NonNull final Format format) {
+        this(new ObjectMapper(), format);
+    }
+
+    /**
+     * @param mapper mapper for generators creation and for writing of values which
+     *               are not strings
+     * @param format layout of written variants
+     */
+    public JsonSuiteWriter(@NonNull final ObjectMapper mapper, @NonNull final Format format) {
+        this.mapper = mapper;
+        this.valueWriter = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.format = format;
+    }
+
+    /**
+     * Generate and write all possible variants of described Map. In
+     * {@link Format#NDJSON} format every object is built separately and written
+     * to generator as raw line, so settings of generator are not changed
+     *
+     * @param plan      compiled description
+     * @param generator target json generator, it is not closed
+     * @return number of written variants
+     * @throws IOException if write failed
+     */
+    public long write(@NonNull final GenerationPlan plan, @NonNull final JsonGenerator generator)
+            throws IOException {
+        return write(plan, generator, false);
+    }
+
+    private long write(final GenerationPlan plan, final JsonGenerator generator, final boolean owned)
+            throws IOException {
+        final PlanNode root = plan.getRoot();
+        final Iterator<int[]> rows = root.rows().iterator();
+        long written = 0;
+        try (Target target = new Target(generator, owned)) {
+            while (rows.hasNext()) {
+                final int[] row = rows.next();
+                writeObject(target.object(), root, column -> row[column]);
+                written++;
+                target.next();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Generate and write all possible variants of described Map. Variants are
+     * written while they are generated, but deduplication keeps fingerprints of
+     * all written variants, so used memory still grows with number of variants
+     *
+     * @param plan compiled description
+     * @param out  target stream, it is not closed
+     * @return number of written variants
+     * @throws IOException if write failed
+     */
+    public long write(@NonNull final GenerationPlan plan, @NonNull final OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            return write(plan, generator, true);
+        }
+    }
+
+    /**
+     * Generate and write all possible variants of described Map to file, see
+     * {@link #write(GenerationPlan, OutputStream)}
+     *
+     * @param plan compiled description
+     * @param file target file, it is replaced if exists
+     * @return number of written variants
+     * @throws IOException if write failed
+     */
+    public long write(@NonNull final GenerationPlan plan, @NonNull final Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            return write(plan, out);
+        }
+    }
+
+    /**
+     * Write generated suite, see {@link #write(GenerationPlan, JsonGenerator)}
+     *
+     * @param suite     generated suite
+     * @param generator target json generator, it is not closed
+     * @return number of written variants
+     * @throws IOException if write failed
+     */
+    public long write(@NonNull final GeneratedSuite suite, @NonNull final JsonGenerator generator)
+            throws IOException {
+        return write(suite, generator, false);
+    }
+
+    private long write(final GeneratedSuite suite, final JsonGenerator generator, final boolean owned)
+            throws IOException {
+        try (Target target = new Target(generator, owned)) {
+            for (int row = 0; row < suite.size(); row++) {
+                writeVariant(target.object(), suite, row);
+                target.next();
+            }
+        }
+        return suite.size();
+    }
+
+    /**
+     * Write generated suite
+     *
+     * @param suite generated suite
+     * @param out   target stream, it is not closed
+     * @return number of written variants
+     * @throws IOException if write failed
+     */
+    public long write(@NonNull final GeneratedSuite suite, @NonNull final OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            return write(suite, generator, true);
+        }
+    }
+
+    private JsonGenerator createGenerator(final OutputStream out) throws IOException {
+        final JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (format == Format.NDJSON) {
+            // Lines are separated explicitly after every object
+            generator.setRootValueSeparator(null);
+        }
+        return generator;
+    }
+
+    /**
+     * Target of written objects. Objects are written directly to generator
+     * created by writer or in array, otherwise every line is written to buffer
+     * and then to generator as raw value
+     */
+    private final class Target implements Closeable {
+        private final JsonGenerator generator;
+        private final StringWriter line;
+        private final JsonGenerator lineGenerator;
+
+        Target(final JsonGenerator generator, final boolean owned) throws IOException {
+            this.generator = generator;
+            if (format == Format.ARRAY) {
+                generator.writeStartArray();
+            }
+            if (format == Format.NDJSON && !owned) {
+                line = new StringWriter();
+                lineGenerator = mapper.getFactory().createGenerator(line).setRootValueSeparator(null);
+            } else {
+                line = null;
+                lineGenerator = null;
+            }
+        }
+
+        /**
+         * @return generator for next object
+         */
+        JsonGenerator object() {
+            return lineGenerator == null ? generator : lineGenerator;
+        }
+
+        /**
+         * Finish written object
+         *
+         * @throws IOException if write failed
+         */
+        void next() throws IOException {
+            if (lineGenerator != null) {
+                lineGenerator.flush();
+                generator.writeRaw(line.toString());
+                line.getBuffer().setLength(0);
+            }
+            if (format == Format.NDJSON) {
+                generator.writeRaw(NEW_LINE);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (lineGenerator != null) {
+                lineGenerator.close();
+            }
+            if (format == Format.ARRAY) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        }
+    }
+
+    private void writeVariant(final JsonGenerator generator, final GeneratedSuite suite, final int row)
+            throws IOException {
+        writeObject(generator, suite.getNode(), column -> suite.getCell(row, column));
+    }
+
+    /**
+     * Write one object, fields are written in description order
+     *
+     * @param generator target json generator
+     * @param node      description of object fields
+     * @param cells     collapsed row cells by column number
+     * @throws IOException if write failed
+     */
+    private void writeObject(final JsonGenerator generator, final PlanNode node, final IntUnaryOperator cells)
+            throws IOException {
+        generator.writeStartObject();
+        for (final PlanNode.Field field : node.getFields()) {
+            if (!field.isPresent()) {
+                continue;
+            }
+            generator.writeFieldName(field.getName());
+            if (field.isScalar()) {
+                writeValue(generator, field.getValues().get(cells.applyAsInt(field.getColumn())));
+            } else if (field.isObject()) {
+                final int variant = cells.applyAsInt(field.getColumn());
+                if (variant == PlanNode.SKIPPED) {
+                    generator.writeNull();
+                } else {
+                    writeVariant(generator, field.getVariants(), variant);
+                }
+            } else {
+                generator.writeStartArray();
+                for (int position = 0; position < field.getPositions()
+                        && cells.applyAsInt(field.getColumn() + position) != PlanNode.SKIPPED; position++) {
+                    writeVariant(generator, field.getVariants(), cells.applyAsInt(field.getColumn() + position));
+                }
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeValue(final JsonGenerator generator, final Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else {
+            valueWriter.writeValue(generator, value);
+        }
+    }
+
+}
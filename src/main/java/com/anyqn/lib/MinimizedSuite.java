@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Variants of generated object covering all pairs of values and child objects
+ * variants covered by full suite, without redundant variants
+ */
+@Value
+public class MinimizedSuite {
+
+    /**
+     * Variants of generated object in order of full suite, maps and lists of
+     * child objects are read-only
+     */
+    @NonNull
+    List<Map<String, Object>> cases;
+    /**
+     * Number of variants in full suite
+     */
+    int suiteSize;
+    /**
+     * Number of pairs covered by variants
+     */
+    long coveredPairs;
+    /**
+     * Number of pairs covered by full suite
+     */
+    long totalPairs;
+
+    /**
+     * @return number of variants removed from full suite
+     */
+    public int getRemovedRows() {
+        return suiteSize - cases.size();
+    }
+
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Pairs covered by rows of one level. Every row is a set of facts: value of
+ * scalar field, child object variant in object field or skipped position of
+ * object field. Row covers every its fact and every pair of its facts, equal
+ * values and variants are the same fact. Pairs of every pair of fields are
+ * keyed arithmetically from offset of fields pair, then only pairs covered by
+ * rows are numbered from zero in order of keys, so covered pairs are tracked in
+ * bitsets of number of covered pairs
+ */
+final class PairCoverage {
+
+    /**
+     * Numbers of pairs covered by every row
+     */
+    private final int[][] rowPairs;
+    /**
+     * Number of distinct pairs covered by all rows, pairs are numbered from zero
+     * to this number
+     */
+    @Getter
+    private final int pairsCount;
+
+    private PairCoverage(final int[][] rowPairs, final int pairsCount) {
+        this.rowPairs = rowPairs;
+        this.pairsCount = pairsCount;
+    }
+
+    /**
+     * Collect pairs of collapsed rows
+     *
+     * @param node level of generated tree
+     * @param rows collapsed rows of level
+     * @return pairs of rows
+     */
+    static PairCoverage of(@NonNull final PlanNode node, @NonNull final List<int[]> rows) {
+        final PlanNode.Field[] fields = node.getFields();
+        final int count = fields.length;
+        // Number of facts of every field, skipped position is last fact
+        final int[] sizes = new int[count];
+        for (int f = 0; f < count; f++) {
+            final PlanNode.Field field = fields[f];
+            sizes[f] = field.isScalar() ? field.getValues().size()
+                    : field.getPositions() == 0 ? 0 : field.getVariants().size() + 1;
+        }
+        // Key of pair of facts a and b of fields i <= j is offsets[i][j] + a * sizes[j] + b
+        final long[][] offsets = new long[count][count];
+        long space = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = i; j < count; j++) {
+                offsets[i][j] = space;
+                space += (long) sizes[i] * sizes[j];
+            }
+        }
+
+        final long[][] rowKeys = new long[rows.size()][];
+        // Facts of row, facts of field f are from bounds[f] to bounds[f + 1]
+        final int[] facts = new int[node.getWidth() + count];
+        final int[] bounds = new int[count + 1];
+        for (int r = 0; r < rows.size(); r++) {
+            final int[] row = rows.get(r);
+            int added = 0;
+            for (int f = 0; f < count; f++) {
+                final PlanNode.Field field = fields[f];
+                bounds[f] = added;
+                if (field.isScalar()) {
+                    facts[added++] = row[field.getColumn()];
+                } else if (field.getPositions() > 0) {
+                    int position = 0;
+                    for (; position < field.getPositions() && row[field.getColumn() + position] != PlanNode.SKIPPED;
+                            position++) {
+                        facts[added++] = field.getCanonical()[row[field.getColumn() + position]];
+                    }
+                    if (position < field.getPositions()) {
+                        facts[added++] = field.getVariants().size();
+                    }
+                    added = distinct(facts, bounds[f], added);
+                }
+            }
+            bounds[count] = added;
+
+            // fact paired with itself is single fact
+            final long[] pairs = new long[added * (added + 1) / 2];
+            int p = 0;
+            for (int i = 0; i < count; i++) {
+                for (int x = bounds[i]; x < bounds[i + 1]; x++) {
+                    for (int y = x; y < bounds[i + 1]; y++) {
+                        pairs[p++] = offsets[i][i] + facts[x] * sizes[i] + facts[y];
+                    }
+                    for (int j = i + 1; j < count; j++) {
+                        for (int y = bounds[j]; y < bounds[j + 1]; y++) {
+                            pairs[p++] = offsets[i][j] + facts[x] * sizes[j] + facts[y];
+                        }
+                    }
+                }
+            }
+            rowKeys[r] = pairs;
+        }
+
+        final long[] keys = Arrays.stream(rowKeys).flatMapToLong(Arrays::stream).sorted().distinct().toArray();
+        final int[][] rowPairs = new int[rows.size()][];
+        for (int r = 0; r < rows.size(); r++) {
+            rowPairs[r] = Arrays.stream(rowKeys[r]).mapToInt(key -> Arrays.binarySearch(keys, key)).toArray();
+            rowKeys[r] = null;
+        }
+        return new PairCoverage(rowPairs, keys.length);
+    }
+
+    /**
+     * Sort facts of field and remove duplicates
+     *
+     * @param facts facts of row
+     * @param from  first fact of field
+     * @param to    end of facts of field
+     * @return end of distinct facts of field
+     */
+    private static int distinct(final int[] facts, final int from, final int to) {
+        Arrays.sort(facts, from, to);
+        int end = from;
+        for (int i = from; i < to; i++) {
+            if (i == from || facts[i] != facts[end - 1]) {
+                facts[end++] = facts[i];
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @param row number of row
+     * @return numbers of pairs covered by row
+     */
+    int[] getPairs(final int row) {
+        return rowPairs[row];
+    }
+
+    /**
+     * @return number of rows
+     */
+    int size() {
+        return rowPairs.length;
+    }
+
+    /**
+     * @param row     number of row
+     * @param covered already covered pairs
+     * @return number of pairs of row which are not covered
+     */
+    int gain(final int row, final BitSet covered) {
+        int gain = 0;
+        for (final int pair : rowPairs[row]) {
+            if (!covered.get(pair)) {
+                gain++;
+            }
+        }
+        return gain;
+    }
+
+    /**
+     * Mark pairs of row as covered
+     *
+     * @param row     number of row
+     * @param covered covered pairs
+     */
+    void cover(final int row, final BitSet covered) {
+        for (final int pair : rowPairs[row]) {
+            covered.set(pair);
+        }
+    }
+
+}
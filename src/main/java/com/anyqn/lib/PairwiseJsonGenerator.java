@@ -16,28 +16,31 @@
 package com.anyqn.lib;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
-import com.abslab.lib.pairwise.gen.PairwiseGenerator;
+import com.anyqn.lib.Properties.Constraint;
 import com.anyqn.lib.Properties.Restriction;
 
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 
 public class PairwiseJsonGenerator implements IMapsGenerator {
 
@@ -48,39 +51,157 @@ public class PairwiseJsonGenerator implements IMapsGenerator {
     private static final String NEED_OBJECTS_ARRAY = "Need objects array";
     private static final String NEED_MIN_RESTRICTIONS_ARRAY = "Need min restrictions array";
     private static final String NEED_MAX_RESTRICTIONS_ARRAY = "Need max restrictions array";
+    private static final String NEED_CONSTRAINTS_ARRAY = "Need constraints array";
+    private static final String CONSTRAINT_CONDITIONS_COUNT = "Need two conditions in constraint %s";
+    private static final String ILLEGAL_CONDITION_FIELD_PATH = "Illegal field path [%s] in constraint condition";
+    private static final String UNKNOWN_CONDITION_VALUE = "Field path [%s] with value [%s] of constraint condition is not in description";
     private static final String VARIANTS_GENERATION_VALIDATION_MESSAGE = "Already generated variants";
-    private static final String VARIANTS_COUNT_VALIDATION_MESSAGE = "We have more than one variant for object field";
     private static final String DOT = ".";
     private static final String FIELD_VALIDATION_MESSAGE = "Illegal field [%s], need fields name length more than zero and fields names can't contans dots";
-    private static final String POSITION = ".position.";
-    private static final String POSITION_D = "^(.*)(\\.position\\.)(\\d)$";
     private static final String MIN_RESTRICTION_LESS_THAN_ZERO = "Min restriction less than zero";
     private static final String DUPLICATE_MIN_VALUE = "Duplicate min value";
     private static final String MAX_RESTRICTION_LESS_THAN_ZERO = "Max restriction less than zero";
     private static final String DUPLICATE_MAX_VALUE = "Duplicate max value";
-    private static final Pattern variantPattern = Pattern.compile(POSITION_D);
+
+    @Getter
+    private final GenerationOptions options;
+
+    public PairwiseJsonGenerator() {
+        this(GenerationOptions.builder().build());
+    }
+
+    public PairwiseJsonGenerator(@NonNull final GenerationOptions options) {
+        this.options = options;
+    }
 
     @Override
     public List<Map<String, Object>> generate(@NonNull final Map<String, List<Object>> jsonMetadata,
             final Properties properties) {
-        validate(properties);
-        /*
-         * Unoptimaly solution This possible because we have deduplication of possible
-         * values added to variants, as example. Source possible variants
-         * fieldC.position.0 = [-1,0] fieldD.position.0 = [ 0,1,2] fieldD.position.1 =
-         * [-1,0,1,2] //Generated cases fieldC.position.0 = [-1, *
-         * 0*,-1,0,-1,0,-1,*0*,-1,0,-1,0], fieldD.position.0 = [ 0, * 1*, 2,0, 1,2,
-         * 0,*1*, 2,0, 1,2], fieldD.position.1 = [-1, *-1*,-1,0, 0,0, 1,*1*, 1,2, 2,2]
-         *
-         * Because we have deduplication this test will be converted to (when we will
-         * add objects to test case in collapseObjectsFields) 011 -> 01-1 but we already
-         * have this test, so generated 12 test cases, but deduplication will return 11
-         **/
-        return generateInternal(jsonMetadata, properties, null).parallelStream().distinct()
-                .collect(Collectors.toList());
+        return compile(jsonMetadata, properties).generate();
+    }
+
+    @Override
+    public Stream<Map<String, Object>> stream(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties) {
+        return compile(jsonMetadata, properties).stream();
+    }
+
+    /**
+     * Generate one shard of all possible variants of input Map with metadata.
+     * Suite is deterministic, so workers can generate own shards without
+     * coordination, see {@link GenerationPlan#generate(int, int)}
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @param shardIndex   number of shard from zero
+     * @param shardCount   number of shards
+     * @return possible variants of generated map in shard,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull List<Map<String, Object>> generate(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties, final int shardIndex, final int shardCount) {
+        return compile(jsonMetadata, properties).generate(shardIndex, shardCount);
+    }
+
+    /**
+     * Generate variants of input Map with metadata ordered by pair coverage, see
+     * {@link GenerationPlan#prioritize(GenerationBudget)}
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @param budget       limits of generation
+     * @return ordered variants and pair coverage reached by them
+     */
+    public @NonNull PrioritizedSuite generatePrioritized(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties, @NonNull final GenerationBudget budget) {
+        return compile(jsonMetadata, properties).prioritize(budget);
+    }
+
+    /**
+     * Generate minimal variants of input Map with metadata covering the same
+     * pairs as full suite, see {@link GenerationPlan#minimize()}
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @return variants covering all pairs and number of removed variants
+     */
+    public @NonNull MinimizedSuite generateMinimized(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties) {
+        return compile(jsonMetadata, properties).minimize();
     }
 
-    private static void validate(final Properties properties) {
+    /**
+     * Generate all possible variants of input Map with metadata to compact
+     * columnar suite
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @return suite of possible variants of generated map
+     */
+    public @NonNull GeneratedSuite generateSuite(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties) {
+        return compile(jsonMetadata, properties).suite();
+    }
+
+    /**
+     * Validate description and precalculate everything which not depends on
+     * generation call, result can be used for repeated or concurrent generation
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @return immutable generation plan
+     */
+    public @NonNull GenerationPlan compile(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties) {
+        return compile(jsonMetadata, properties, (SeedRows) null);
+    }
+
+    /**
+     * Compile changed description incrementally: objects of previously generated
+     * suite are kept where they are still valid, fields added to description are
+     * set in kept objects and objects are added only to cover new pairs. Levels
+     * are generated sequentially with {@link CoverageEngine#extend} and without
+     * subtree cache
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @param previous     previously generated suite
+     * @return immutable generation plan, kept objects go first in previous order
+     */
+    public @NonNull GenerationPlan compile(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties, @NonNull final List<? extends Map<String, Object>> previous) {
+        return compile(jsonMetadata, properties, SeedRows.of(previous));
+    }
+
+    /**
+     * Generate suite for changed description incrementally, see
+     * {@link #compile(Map, Properties, List)}
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @param previous     previously generated suite
+     * @return list of possible variants of generated map,
+     *         maps and lists of child objects are read-only
+     */
+    public @NonNull List<Map<String, Object>> regenerate(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties, @NonNull final List<? extends Map<String, Object>> previous) {
+        return compile(jsonMetadata, properties, previous).generate();
+    }
+
+    private @NonNull GenerationPlan compile(@NonNull final Map<String, List<Object>> jsonMetadata,
+            final Properties properties, final SeedRows seeds) {
+        validate(jsonMetadata, properties);
+        final Compilation compilation = new Compilation(properties.index(),
+                Objects.isNull(options.getSubtreeCache()) ? new SubtreeCache() : options.getSubtreeCache());
+        if (options.isParallel() && Objects.isNull(seeds)) {
+            return new GenerationPlan(options.getPool().invoke(ForkJoinTask.adapt(
+                    (Callable<PlanNode>) () -> compileInternal(jsonMetadata, compilation, PathDictionary.ROOT,
+                            null))));
+        }
+        return new GenerationPlan(compileInternal(jsonMetadata, compilation, PathDictionary.ROOT, seeds));
+    }
+
+    static void validate(final Properties properties) {
         Validate.isTrue(!Objects.isNull(properties), NEED_PROPERTIES_IN_JSON_DESCRIPTION);
         Validate.isTrue(!Objects.isNull(properties.getMaxRestrictions()), NEED_MAX_RESTRICTIONS_ARRAY);
         Validate.isTrue(!Objects.isNull(properties.getMinRestrictions()), NEED_MIN_RESTRICTIONS_ARRAY);
@@ -97,176 +218,214 @@ public class PairwiseJsonGenerator implements IMapsGenerator {
             Validate.isTrue(fieldPaths.add(r.getFieldPath()), DUPLICATE_MIN_VALUE, r.getFieldPath());
             Validate.isTrue(r.getValue() > 0, MIN_RESTRICTION_LESS_THAN_ZERO, r.getValue());
         });
+        Validate.isTrue(!Objects.isNull(properties.getConstraints()), NEED_CONSTRAINTS_ARRAY);
+        properties.getConstraints().stream().forEach((final Constraint c) -> {
+            Validate.isTrue(c.getConditions().size() == 2, CONSTRAINT_CONDITIONS_COUNT, c.getConditions());
+            c.getConditions().forEach(condition -> Validate.isTrue(
+                    Arrays.stream(condition.getFieldPath().split("\\.", -1)).noneMatch(StringUtils::isBlank),
+                    ILLEGAL_CONDITION_FIELD_PATH, condition.getFieldPath()));
+        });
     }
 
-    private @NonNull List<Map<String, Object>> generateInternal(@NonNull final Map<String, List<Object>> jsonMetadata,
-            @NonNull final Properties properties, final String rootPath) {
+    /**
+     * Validate properties and check that every constraint condition has path and
+     * value of some field in description, so mistyped conditions are not ignored
+     *
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     */
+    static void validate(final Map<String, List<Object>> jsonMetadata, final Properties properties) {
+        validate(properties);
+        properties.getConstraints().forEach(c -> c.getConditions()
+                .forEach(condition -> Validate.isTrue(
+                        describes(jsonMetadata, condition.getFieldPath().split("\\."), 0, condition.getValue()),
+                        UNKNOWN_CONDITION_VALUE, condition.getFieldPath(), condition.getValue())));
+    }
 
-        final Map<String, List<Object>> params = new LinkedHashMap<>();
-        final Map<String, List<Map<String, Object>>> variants = new HashMap<>();
+    /**
+     * @param description description of object
+     * @param path        path of field
+     * @param from        number of first not resolved segment of path
+     * @param value       value of condition
+     * @return true if some field by path has value
+     */
+    private static boolean describes(final Map<?, ?> description, final String[] path, final int from,
+            final Object value) {
+        final Object values = description.get(path[from]);
+        if (!(values instanceof List)) {
+            return false;
+        } else if (from == path.length - 1) {
+            return ((List<?>) values).stream().anyMatch(v -> Objects.equals(v, value));
+        }
+        return ((List<?>) values).stream().anyMatch(
+                child -> child instanceof Map && describes((Map<?, ?>) child, path, from + 1, value));
+    }
+
+    private @NonNull PlanNode compileInternal(@NonNull final Map<String, List<Object>> jsonMetadata,
+            @NonNull final Compilation compilation, final int rootPath, final SeedRows seeds) {
 
+        final RestrictionIndex restrictions = compilation.getRestrictions();
+
+        final Map<String, List<Map<String, List<Object>>>> objectFields = new HashMap<>();
         for (final Entry<String, List<Object>> entry : jsonMetadata.entrySet()) {
 
             List<Map<String, List<Object>>> objectDescriptions = entry.getValue().stream()
                     .map(PairwiseJsonGenerator::getMapObjectDescription).collect(Collectors.toList());
             if (objectDescriptions.stream().allMatch(o -> !Objects.isNull(o))) {
-                calculateVariants(properties, rootPath, params, variants, entry.getKey(), objectDescriptions);
+                objectFields.put(entry.getKey(), objectDescriptions);
             } else {
-                String key = entry.getKey();
-                castField(key);
-                params.put(key, entry.getValue());
+                castField(entry.getKey());
             }
 
         }
 
-        final PairwiseGenerator<String, Object> gen = new PairwiseGenerator<>(params);
-
-        return generateResult(gen, Collections.unmodifiableMap(variants), properties);
-    }
-
-    /**
-     * Calculate possible variants for objects for parent object
-     *
-     * @param properties         restrictions to generated result
-     * @param rootPath           to the current calculated parent object
-     * @param params             for filling to generate variants of parent object
-     * @param variants           possible variants of child object
-     * @param objectDescriptions field from parent object
-     */
-    private void calculateVariants(@NonNull final Properties properties, final String rootPath,
-            @NonNull final Map<String, List<Object>> params,
-            @NonNull final Map<String, List<Map<String, Object>>> variants, @NonNull final String childKey,
-            @NonNull final List<Map<String, List<Object>>> objectDescriptions) {
-
-        final String calculatedPath;
-        if (Objects.isNull(rootPath)) {
-            calculatedPath = childKey;
-        } else {
-            calculatedPath = rootPath + DOT + childKey;
+        // Objects of previous suite for child levels in incremental compilation
+        final Map<String, SeedRows> childSeeds = new HashMap<>();
+        if (!Objects.isNull(seeds)) {
+            objectFields.keySet().forEach(key -> childSeeds.put(key, seeds.child(key)));
         }
+        final Map<String, Supplier<GeneratedSuite>> childVariants = compileChildren(compilation, rootPath,
+                objectFields, childSeeds);
 
-        for (final Map<String, List<Object>> object : objectDescriptions) {
-            final List<Map<String, Object>> variantsList = generateInternal(object, properties, calculatedPath);
+        // Domain sizes of covering array params by column number of slot table
+        final List<Integer> domainSizes = new ArrayList<>();
+        final List<PlanNode.Field> fields = new ArrayList<>();
 
-            if (variants.containsKey(calculatedPath)) {
-                throw new IllegalStateException(VARIANTS_GENERATION_VALIDATION_MESSAGE);
+        for (final Entry<String, List<Object>> entry : jsonMetadata.entrySet()) {
+            final String key = entry.getKey();
+            if (objectFields.containsKey(key)) {
+                fields.add(calculateVariants(restrictions, restrictions.child(rootPath, key), domainSizes, key,
+                        childVariants.get(key).get()));
             } else {
-                variants.put(calculatedPath, Collections.unmodifiableList(variantsList));
+                fields.add(PlanNode.Field.scalar(key, domainSizes.size(), entry.getValue()));
+                domainSizes.add(entry.getValue().size());
             }
         }
 
-        final List<Map<String, Object>> variantsForField = variants.get(calculatedPath);
-
-        Validate.isTrue(variantsForField.size() >= properties.getMinRestriction(calculatedPath),
-                GENERATED_VARIANTS_NUMBER_LESS_THAN_ALLOWED_FOR, calculatedPath);
-
-        for (int i = 0; i < Math.min(variantsForField.size(), properties.getMaxRestriction(calculatedPath)); i++) {
-            // -1 variant number is value can be skipt in result generation process
-            params.put(calculatedPath + POSITION + i,
-                    IntStream.range(i < properties.getMinRestriction(calculatedPath) ? 0 : -1, variantsForField.size())
-                            .boxed().collect(Collectors.toList()));
+        final String path = rootPath == PathDictionary.ROOT ? GenerationListener.ROOT_PATH
+                : restrictions.getPaths().path(rootPath);
+        final GenerationListener listener = options.getListener();
+        final int[] domains = domainSizes.stream().mapToInt(Integer::intValue).toArray();
+        listener.onLevel(path, domains.length, domains.clone());
+
+        final long start = System.nanoTime();
+        final PlanNode.Field[] planFields = fields.toArray(new PlanNode.Field[0]);
+        final ForbiddenPairs forbidden = ForbiddenPairs.of(restrictions.getConstraints(rootPath), planFields,
+                domains);
+        final CoverageTable table;
+        if (Objects.isNull(seeds) && forbidden.isEmpty()) {
+            table = options.getEngine().cover(domains);
+        } else {
+            table = options.getEngine().extend(domains, Objects.isNull(seeds) ? Collections.emptyList()
+                    : seeds.encode(planFields, domains.length, childSeeds, forbidden), forbidden);
         }
+        listener.onGeneratorBuilt(path, table.getRowsCount(), System.nanoTime() - start);
+
+        return new PlanNode(table, planFields, domains.length, path, listener);
     }
 
     /**
-     * Generate result object from generated possible test cases
+     * Generate variants of child objects of parent object. Subtrees of sibling
+     * fields are independent, so in parallel mode they are generated as fork-join
+     * tasks, in sequential mode every subtree is generated when it is requested
      *
-     * @param gen        Pairwise generator
-     * @param variants   possible variants of child objects for some fields
-     * @param properties
-     * @return list of possible variants of generated object
+     * @param compilation  state of current compilation
+     * @param rootPath     id of path to the current calculated parent object
+     * @param objectFields descriptions of child objects by field name
+     * @param childSeeds   objects of previous suite by field name in incremental
+     *                     compilation, such subtrees are generated sequentially
+     * @return suppliers of possible variants of child objects by field name
      */
-    private static List<Map<String, Object>> generateResult(@NonNull final PairwiseGenerator<String, Object> gen,
-            @NonNull final Map<String, List<Map<String, Object>>> variants, @NonNull final Properties properties) {
-
-        final List<Map<String, Object>> result = new ArrayList<>();
-
-        for (int i = 0; i < gen.getRowsCount(); i++) {
-            final Map<String, Object> testCase = gen.getTestCase(i);
-            collapseObjectsFields(variants, testCase, properties);
-            result.add(testCase);
+    private Map<String, Supplier<GeneratedSuite>> compileChildren(@NonNull final Compilation compilation,
+            final int rootPath, @NonNull final Map<String, List<Map<String, List<Object>>>> objectFields,
+            @NonNull final Map<String, SeedRows> childSeeds) {
+
+        final RestrictionIndex restrictions = compilation.getRestrictions();
+
+        final Map<String, Supplier<GeneratedSuite>> childVariants = new HashMap<>();
+        if (options.isParallel() && childSeeds.isEmpty()) {
+            final Map<String, ForkJoinTask<GeneratedSuite>> tasks = new HashMap<>();
+            objectFields.forEach((key, objectDescriptions) -> tasks.put(key,
+                    ForkJoinTask.adapt((Callable<GeneratedSuite>) () -> compileVariants(compilation,
+                            restrictions.child(rootPath, key), objectDescriptions, null))));
+            ForkJoinTask.invokeAll(tasks.values());
+            tasks.forEach((key, task) -> childVariants.put(key, task::join));
+        } else {
+            objectFields.forEach((key, objectDescriptions) -> childVariants.put(key, () -> compileVariants(
+                    compilation, restrictions.child(rootPath, key), objectDescriptions, childSeeds.get(key))));
         }
-
-        return result;
-
+        return childVariants;
     }
 
     /**
-     * Generate one field with list of possible variants of generated child object
+     * Generate possible variants of child object, identical subtrees are taken
+     * from cache
      *
-     * @param variants possible variants of child object
-     * @param testCase generated test case with fields for collapsing
+     * @param compilation        state of current compilation
+     * @param calculatedPath     id of path to the child object field
+     * @param objectDescriptions field from parent object
+     * @param seeds              objects of previous suite in incremental
+     *                           compilation, they are not cached
+     * @return possible variants of child object
      */
-    private static void collapseObjectsFields(@NonNull final Map<String, @NonNull List<Map<String, Object>>> variants,
-            @NonNull final Map<String, Object> testCase, @NonNull final Properties properties) {
-        addAllValuesToTestCase(testCase, properties, findAllValuesVariants(variants, testCase));
-    }
+    private GeneratedSuite compileVariants(@NonNull final Compilation compilation, final int calculatedPath,
+            @NonNull final List<Map<String, List<Object>>> objectDescriptions, final SeedRows seeds) {
 
-    /**
-     * Add to test cases list of possible variants (real values) for field or one
-     * possible value for objects
-     *
-     * @param testCase             generated test case
-     * @param properties
-     * @param addedObjectsVariants generated possible values for fields
-     */
-    private static void addAllValuesToTestCase(final Map<String, Object> testCase, final Properties properties,
-            final Map<String, List<Object>> addedObjectsVariants) {
-        for (final Map.Entry<String, List<Object>> addedVariant : addedObjectsVariants.entrySet()) {
-            // If this is object, but not list of values, just set first value from variants
-            final String fieldName = addedVariant.getKey().substring(addedVariant.getKey().lastIndexOf(DOT) + 1);
-            if (properties.isObject(addedVariant.getKey())) {
-                final List<Object> variant = addedVariant.getValue();
-                if (Objects.isNull(variant) || variant.isEmpty()) {
-                    testCase.put(fieldName, null);
-                } else if (variant.size() != 1) {
-                    throw new IllegalStateException(VARIANTS_COUNT_VALIDATION_MESSAGE);
-                } else {
-                    testCase.put(fieldName, variant.get(0));
-                }
+        GeneratedSuite variantsForField = null;
+        for (final Map<String, List<Object>> object : objectDescriptions) {
+            if (!Objects.isNull(seeds)) {
+                Validate.validState(Objects.isNull(variantsForField), VARIANTS_GENERATION_VALIDATION_MESSAGE);
+                variantsForField = compileInternal(object, compilation, calculatedPath, seeds).variants();
+                continue;
+            }
+            final boolean[] generated = new boolean[1];
+            final GeneratedSuite variantsList = compilation.getSubtreeCache().variants(object,
+                    compilation.getRestrictions().subtree(calculatedPath), options.getEngine(), () -> {
+                        generated[0] = true;
+                        return compileInternal(object, compilation, calculatedPath, null).variants();
+                    });
+            if (!generated[0]) {
+                options.getListener()
+                        .onSubtreeCacheHit(compilation.getRestrictions().getPaths().path(calculatedPath));
+            }
+
+            if (!Objects.isNull(variantsForField)) {
+                throw new IllegalStateException(VARIANTS_GENERATION_VALIDATION_MESSAGE);
             } else {
-                testCase.put(fieldName, addedVariant.getValue());
+                variantsForField = variantsList;
             }
         }
+        return variantsForField;
     }
 
     /**
-     * Convert all params described object variants for field value to list of
-     * variants
+     * Calculate possible variants for objects for parent object
      *
-     * @param variants precalculated possible variants
-     * @param testCase test cases with params descriptions as
-     *                 fieldName.POSITION.[0...X]
-     * @return
+     * @param restrictions     restrictions to generated result
+     * @param calculatedPath   id of path to the child object field
+     * @param domainSizes      for filling to generate variants of parent object
+     * @param childKey         name of object field
+     * @param variantsForField possible variants of child object
+     * @return object field with slots for each possible position of child object
      */
-    private static Map<String, List<Object>> findAllValuesVariants(
-            final Map<String, List<Map<String, Object>>> variants, final Map<String, Object> testCase) {
-        // Set of added variants for deduplication of added variants numbers (because we
-        // have Pairwise theory method and in this method we do not need duplicates)
-        final Map<String, Set<Integer>> addedVariants = new HashMap<>();
-        // List of added objects as variants to test case
-        final Map<String, List<Object>> addedObjectsVariants = new HashMap<>();
-
-        for (final Iterator<Entry<String, Object>> fieldIterator = testCase.entrySet().iterator(); fieldIterator
-                .hasNext();) {
-            final Entry<String, Object> entry = fieldIterator.next();
-            final Matcher matcher = variantPattern.matcher(entry.getKey());
-            if (matcher.find()) {
-                final String fieldName = matcher.group(1);
-                final Integer variantNumber = (Integer) entry.getValue();
-                // We will add empty list of possible values for all variants, because we need add
-                // this field to target json may be with null value
-                List<Object> possibleValues = addedObjectsVariants.computeIfAbsent(fieldName, k -> new ArrayList<>());
-                // if -1 then we need just skip this variant
-                if (variantNumber != -1
-                        && addedVariants.computeIfAbsent(fieldName, k -> new HashSet<>()).add(variantNumber)) {
-                    possibleValues.add(variants.get(fieldName).get(variantNumber));
-                }
-                fieldIterator.remove();
-            }
+    private static PlanNode.Field calculateVariants(@NonNull final RestrictionIndex restrictions,
+            final int calculatedPath, @NonNull final List<Integer> domainSizes,
+            @NonNull final String childKey, final GeneratedSuite variantsForField) {
+
+        final int minRestriction = restrictions.getMinRestriction(calculatedPath);
+        Validate.isTrue(variantsForField.size() >= minRestriction, GENERATED_VARIANTS_NUMBER_LESS_THAN_ALLOWED_FOR,
+                restrictions.getPaths().path(calculatedPath));
+
+        final int firstColumn = domainSizes.size();
+        final int positions = Math.min(variantsForField.size(), restrictions.getMaxRestriction(calculatedPath));
+        final PlanNode.Field field = PlanNode.Field.object(childKey, firstColumn, positions,
+                Math.min(minRestriction, positions), restrictions.isObject(calculatedPath), variantsForField);
+        for (int i = 0; i < positions; i++) {
+            // positions after min restriction have one more value, it can be skipt in
+            // result generation process
+            domainSizes.add(field.domainSize(i));
         }
-
-        return addedObjectsVariants;
+        return field;
     }
 
     /**
@@ -275,10 +434,13 @@ public class PairwiseJsonGenerator implements IMapsGenerator {
      * @param v
      * @return true if we can cast
      */
-    private static Map<String, List<Object>> getMapObjectDescription(final Object v) {
+    static Map<String, List<Object>> getMapObjectDescription(final Object v) {
         try {
             if (Objects.isNull(v)) {
                 return null;
+            } else if (v instanceof Description) {
+                // already validated by streaming loader
+                return (Description) v;
             }
             return castObjectDescription((Map<?, ?>) v);
         } catch (final ClassCastException e) {
@@ -287,15 +449,16 @@ public class PairwiseJsonGenerator implements IMapsGenerator {
     }
 
     /**
-     * Convert Map to object description object
+     * Convert Map to object description object, order of fields is kept, so
+     * generated suite does not depend on hash seed of JVM
      *
      * @param mapValue map of fields and values describing object
      * @return
      */
     private static Map<String, List<Object>> castObjectDescription(final Map<?, ?> mapValue) {
-        return mapValue.entrySet().stream()
-                .collect(Collectors.toUnmodifiableMap(e -> castField(e.getKey()), e -> castValue(e.getValue())));
-
+        final Map<String, List<Object>> description = new LinkedHashMap<>();
+        mapValue.forEach((k, v) -> description.put(castField(k), castValue(v)));
+        return Collections.unmodifiableMap(description);
     }
 
     /**
@@ -318,7 +481,7 @@ public class PairwiseJsonGenerator implements IMapsGenerator {
      * @param k
      * @return firld name
      */
-    private static String castField(Object k) {
+    static String castField(Object k) {
         if (k instanceof String) {
             if (StringUtils.isBlank((String) k) || ((String) k).contains(DOT)) {
                 throw new IllegalArgumentException(String.format(FIELD_VALIDATION_MESSAGE, k));
@@ -330,4 +493,16 @@ public class PairwiseJsonGenerator implements IMapsGenerator {
         }
     }
 
+    /**
+     * State shared by all levels of one compilation
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static final class Compilation {
+        @NonNull
+        private final RestrictionIndex restrictions;
+        @NonNull
+        private final SubtreeCache subtreeCache;
+    }
+
 }
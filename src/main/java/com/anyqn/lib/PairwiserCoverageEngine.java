@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.abslab.lib.pairwise.gen.PairwiseGenerator;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+
+/**
+ * Engine based on {@link PairwiseGenerator} of pairwiser library, rows are
+ * converted from generator test cases on demand
+ */
+@EqualsAndHashCode
+public final class PairwiserCoverageEngine implements CoverageEngine {
+
+    @Override
+    public CoverageTable cover(@NonNull final int[] domainSizes) {
+        // Params of pairwise generator keyed by param number
+        final Map<Integer, List<Integer>> params = new LinkedHashMap<>();
+        for (int param = 0; param < domainSizes.length; param++) {
+            params.put(param, IntStream.range(0, domainSizes[param]).boxed().collect(Collectors.toList()));
+        }
+        final PairwiseGenerator<Integer, Integer> generator = new PairwiseGenerator<>(params);
+
+        return new CoverageTable() {
+            @Override
+            public int getRowsCount() {
+                return generator.getRowsCount();
+            }
+
+            @Override
+            public int[] getRow(final int index) {
+                final Map<Integer, Integer> testCase = generator.getTestCase(index);
+                final int[] row = new int[domainSizes.length];
+                for (int param = 0; param < row.length; param++) {
+                    row[param] = testCase.get(param);
+                }
+                return row;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.NonNull;
+
+/**
+ * Dictionary of interned dotted field paths. Every path gets int id, so
+ * generation can work with ids instead of strings and child paths are
+ * concatenated only once. Lookups of known paths are lock free, only new paths
+ * are added under lock
+ */
+public final class PathDictionary {
+
+    /**
+     * Id of root object, parent of top level fields
+     */
+    public static final int ROOT = -1;
+    private static final String DOT = ".";
+    private static final String UNKNOWN_PATH_ID = "Unknown path id [%s]";
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    /**
+     * Children ids by name by parent id, {@link #ROOT} for top level fields
+     */
+    private final Map<Integer, Map<String, Integer>> children = new ConcurrentHashMap<>();
+    /**
+     * Append-only paths by id, element is written before array is published and
+     * array is published before size
+     */
+    private volatile String[] paths = new String[16];
+    private volatile int size;
+
+    /**
+     * Get id of path, new id is added if path is unknown
+     *
+     * @param path dotted field path
+     * @return id of path
+     */
+    public int intern(@NonNull final String path) {
+        final Integer id = ids.get(path);
+        return id != null ? id : add(path);
+    }
+
+    private synchronized int add(final String path) {
+        final Integer id = ids.get(path);
+        if (id != null) {
+            return id;
+        }
+        final int added = size;
+        final String[] current = paths;
+        final String[] next = added < current.length ? current : Arrays.copyOf(current, current.length * 2);
+        next[added] = path;
+        paths = next;
+        size = added + 1;
+        ids.put(path, added);
+        return added;
+    }
+
+    /**
+     * Get id of child field path
+     *
+     * @param parentId id of parent object path or {@link #ROOT}
+     * @param name     name of child field
+     * @return id of path to child field
+     */
+    public int child(final int parentId, @NonNull final String name) {
+        final Map<String, Integer> parentChildren = children.get(parentId);
+        final Integer id = parentChildren == null ? null : parentChildren.get(name);
+        if (id != null) {
+            return id;
+        }
+        final int added = intern(parentId == ROOT ? name : path(parentId) + DOT + name);
+        children.computeIfAbsent(parentId, k -> new ConcurrentHashMap<>()).put(name, added);
+        return added;
+    }
+
+    /**
+     * Get dotted path by id
+     *
+     * @param id id of path
+     * @return dotted path
+     */
+    public @NonNull String path(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException(String.format(UNKNOWN_PATH_ID, id));
+        }
+        return paths[id];
+    }
+
+    /**
+     * @return number of interned paths
+     */
+    public int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,405 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Precalculated level of generated tree: covering array for fields of object
+ * and generated variants of child objects. Every covering array param is a
+ * column of slot table, scalar field takes one column and object field takes
+ * one column for each possible position of child object. Covering array works
+ * with numbers of values and numbers of child objects variants, numbers of
+ * variants of optional positions are shifted by one to have
+ * {@link #SKIPPED} as zero
+ */
+final class PlanNode {
+
+    private static final String VARIANTS_COUNT_VALIDATION_MESSAGE = "We have more than one variant for object field";
+    /**
+     * Variant number of skipped position of object field
+     */
+    static final int SKIPPED = -1;
+
+    /**
+     * Covering array with column per param, only read after construction
+     */
+    private final CoverageTable table;
+    /**
+     * Fields of generated object
+     */
+    @Getter
+    private final Field[] fields;
+    /**
+     * Fields added to generated object by name, object fields without positions
+     * are not added
+     */
+    private final Map<String, Field> present = new HashMap<>();
+    /**
+     * Number of columns in slot table
+     */
+    @Getter
+    private final int width;
+    /**
+     * Path of object where level was compiled
+     */
+    private final String path;
+    private final GenerationListener listener;
+
+    PlanNode(@NonNull final CoverageTable table, @NonNull final Field[] fields, final int width,
+            @NonNull final String path, @NonNull final GenerationListener listener) {
+        this.table = table;
+        this.fields = fields;
+        this.width = width;
+        this.path = path;
+        this.listener = listener;
+        for (final Field field : fields) {
+            if (field.isPresent()) {
+                present.put(field.getName(), field);
+            }
+        }
+    }
+
+    /**
+     * Generate result objects from generated possible test cases, test cases are
+     * built on demand from covering array rows
+     *
+     * @return lazy stream of distinct possible variants of generated object
+     */
+    Stream<Map<String, Object>> stream() {
+        return rows().map(this::materialize);
+    }
+
+    /**
+     * Generate suite of distinct possible variants of generated object
+     *
+     * @return columnar suite
+     */
+    GeneratedSuite suite() {
+        return GeneratedSuite.of(this, rows());
+    }
+
+    /**
+     * Generate possible variants of child object, as before variants are not
+     * deduplicated, so equal variants can be added to one list of objects
+     *
+     * @return columnar suite of possible variants of child object
+     */
+    GeneratedSuite variants() {
+        final long start = System.nanoTime();
+        final GeneratedSuite variants = GeneratedSuite.of(this,
+                IntStream.range(0, table.getRowsCount()).mapToObj(this::collapse));
+        listener.onCollapse(path, variants.size(), System.nanoTime() - start);
+        return variants;
+    }
+
+    /**
+     * Generate distinct rows of values and child objects variants numbers
+     *
+     * @return lazy stream of collapsed rows
+     */
+    Stream<int[]> rows() {
+        /*
+         * Unoptimaly solution This possible because we have deduplication of possible
+         * values added to variants, as example. Source possible variants
+         * fieldC.position.0 = [-1,0] fieldD.position.0 = [ 0,1,2] fieldD.position.1 =
+         * [-1,0,1,2] //Generated cases fieldC.position.0 = [-1, *
+         * 0*,-1,0,-1,0,-1,*0*,-1,0,-1,0], fieldD.position.0 = [ 0, * 1*, 2,0, 1,2,
+         * 0,*1*, 2,0, 1,2], fieldD.position.1 = [-1, *-1*,-1,0, 0,0, 1,*1*, 1,2, 2,2]
+         *
+         * Because we have deduplication this test will be converted to (when we will
+         * add objects to test case in collapseObjectsFields) 011 -> 01-1 but we already
+         * have this test, so generated 12 test cases, but deduplication will return 11.
+         * Deduplication uses only numbers of values and variants, so duplicates are
+         * found before any object is built
+         **/
+        final Set<RowKey> generated = ConcurrentHashMap.newKeySet();
+        final int rowsCount = table.getRowsCount();
+        if (listener == GenerationListener.NONE) {
+            return IntStream.range(0, rowsCount).mapToObj(this::collapse)
+                    .filter(row -> generated.add(fingerprint(row)));
+        }
+        // Events are reported once, when last row is processed or, for short
+        // circuited stream, with partial counts when stream is closed
+        final LongAdder collapseTime = new LongAdder();
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicBoolean reported = new AtomicBoolean();
+        final Runnable report = () -> {
+            if (reported.compareAndSet(false, true)) {
+                listener.onCollapse(path, processed.get(), collapseTime.sum());
+                listener.onDeduplication(path, processed.get(), generated.size());
+            }
+        };
+        if (rowsCount == 0) {
+            report.run();
+        }
+        return IntStream.range(0, rowsCount).mapToObj(index -> {
+            final long start = System.nanoTime();
+            final int[] row = collapse(index);
+            collapseTime.add(System.nanoTime() - start);
+            final boolean added = generated.add(fingerprint(row));
+            if (processed.incrementAndGet() == rowsCount) {
+                report.run();
+            }
+            return added ? row : null;
+        }).filter(Objects::nonNull).onClose(report);
+    }
+
+    /**
+     * Build fingerprint of collapsed row, equal fingerprints mean equal generated
+     * objects
+     *
+     * @param row collapsed row
+     * @return fingerprint with numbers of first equal values and variants
+     */
+    private RowKey fingerprint(final int[] row) {
+        final int[] key = row.clone();
+        for (final Field field : fields) {
+            for (int position = 0; position < field.getPositions() && key[field.getColumn() + position] != SKIPPED;
+                    position++) {
+                key[field.getColumn() + position] = field.canonical[key[field.getColumn() + position]];
+            }
+        }
+        return new RowKey(key);
+    }
+
+    /**
+     * Collapse covering array row, for every object field distinct variants
+     * numbers are moved to the start of field columns and other columns are
+     * {@link #SKIPPED}
+     *
+     * @param index number of covering array row
+     * @return collapsed row
+     */
+    private int[] collapse(final int index) {
+        final int[] generated = table.getRow(index);
+        final int[] row = new int[width];
+        for (final Field field : fields) {
+            final int column = field.getColumn();
+            if (field.isScalar()) {
+                row[column] = field.canonical[generated[column]];
+            } else {
+                field.collapse(generated, row);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Build test case from collapsed row
+     *
+     * @param row collapsed row
+     * @return generated test case
+     */
+    Map<String, Object> materialize(final int[] row) {
+        final Map<String, Object> testCase = new HashMap<>();
+        for (final Field field : present.values()) {
+            testCase.put(field.getName(), field.value(column -> row[column]));
+        }
+        return testCase;
+    }
+
+    /**
+     * @param name name of field
+     * @return field added to generated object or null
+     */
+    Field getField(final Object name) {
+        return present.get(name);
+    }
+
+    /**
+     * @return fields added to generated object
+     */
+    Collection<Field> getPresentFields() {
+        return present.values();
+    }
+
+    /**
+     * Descriptor of field columns in slot table
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    static final class Field {
+        @NonNull
+        private final String name;
+        /**
+         * First column of field
+         */
+        private final int column;
+        /**
+         * Number of columns (positions of child object), zero for scalar field
+         */
+        private final int positions;
+        /**
+         * Number of first positions which can not be skipped
+         */
+        private final int mandatory;
+        /**
+         * Field with one object instead of list of objects
+         */
+        private final boolean object;
+        /**
+         * Possible values of scalar field, null for object field
+         */
+        private final List<Object> values;
+        /**
+         * Number of first equal value or variant for every value or variant of field
+         */
+        private final int[] canonical;
+        /**
+         * Possible variants of child object, null for scalar field
+         */
+        private final GeneratedSuite variants;
+
+        static Field scalar(@NonNull final String name, final int column, @NonNull final List<Object> values) {
+            return new Field(name, column, 0, 0, false, Collections.unmodifiableList(new ArrayList<>(values)),
+                    canonical(values), null);
+        }
+
+        static Field object(@NonNull final String name, final int column, final int positions,
+                final int mandatory, final boolean object, @NonNull final GeneratedSuite variants) {
+            return new Field(name, column, positions, mandatory, object, null, canonical(variants.getRows()),
+                    variants);
+        }
+
+        /**
+         * @param position position of child object
+         * @return number of possible values of position column in covering array
+         */
+        int domainSize(final int position) {
+            return position < mandatory ? variants.size() : variants.size() + 1;
+        }
+
+        /**
+         * Find number of first equal value for every value
+         *
+         * @param values list of values
+         * @return numbers of first equal values
+         */
+        private static int[] canonical(final List<?> values) {
+            final Map<Object, Integer> firstIndexes = new HashMap<>();
+            final int[] canonical = new int[values.size()];
+            for (int i = 0; i < values.size(); i++) {
+                final Integer first = firstIndexes.putIfAbsent(values.get(i), i);
+                canonical[i] = first == null ? i : first;
+            }
+            return canonical;
+        }
+
+        boolean isScalar() {
+            return variants == null;
+        }
+
+        /**
+         * @return true if field is added to generated object
+         */
+        boolean isPresent() {
+            return isScalar() || positions > 0;
+        }
+
+        /**
+         * Move distinct variants numbers from all positions of field to the start of
+         * field columns
+         *
+         * @param generated covering array row with shifted variants numbers in field
+         *                  columns
+         * @param row       collapsed row
+         */
+        private void collapse(final int[] generated, final int[] row) {
+            int added = 0;
+            for (int position = 0; position < positions; position++) {
+                final int variantNumber = position < mandatory ? generated[column + position]
+                        : generated[column + position] - 1;
+                // if -1 then we need just skip this variant, duplicates are skipped too
+                // (because we have Pairwise theory method and in this method we do not need
+                // duplicates)
+                if (variantNumber != SKIPPED && !contains(row, column, column + added, variantNumber)) {
+                    row[column + added++] = variantNumber;
+                }
+            }
+            if (object && added > 1) {
+                throw new IllegalStateException(VARIANTS_COUNT_VALIDATION_MESSAGE);
+            }
+            Arrays.fill(row, column + added, column + positions, SKIPPED);
+        }
+
+        /**
+         * Convert value number to value or variants numbers to list of variants (real
+         * values) or to one possible value for objects
+         *
+         * @param cells collapsed row cells by column number
+         * @return value of field
+         */
+        Object value(final IntUnaryOperator cells) {
+            if (isScalar()) {
+                return values.get(cells.applyAsInt(column));
+            }
+            final List<Object> possibleValues = new ArrayList<>(positions);
+            for (int position = 0; position < positions && cells.applyAsInt(column + position) != SKIPPED;
+                    position++) {
+                possibleValues.add(variants.getRow(cells.applyAsInt(column + position)));
+            }
+            // If this is object, but not list of values, just set first value from variants
+            if (!object) {
+                return possibleValues;
+            } else if (possibleValues.isEmpty()) {
+                return null;
+            } else {
+                return possibleValues.get(0);
+            }
+        }
+
+        private static boolean contains(final int[] row, final int from, final int to, final int value) {
+            for (int i = from; i < to; i++) {
+                if (row[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Compact fingerprint of collapsed row
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class RowKey {
+        private final int[] row;
+    }
+
+}
@@ -30,6 +30,7 @@ public class Properties {
     private List<Restriction> minRestrictions = new ArrayList<>();
     private List<Restriction> maxRestrictions = new ArrayList<>();
     private Set<String> objects = new HashSet<>();
+    private List<Constraint> constraints = new ArrayList<>();
 
     public int getMaxRestriction(@NonNull final String path) {
         return maxRestrictions.stream().filter(r -> r.getFieldPath().equals(path)).findFirst()
@@ -45,6 +46,16 @@ public class Properties {
         return objects.contains(path);
     }
 
+    /**
+     * Build index of restrictions by interned field paths for constant time
+     * lookups
+     *
+     * @return restrictions index
+     */
+    public @NonNull RestrictionIndex index() {
+        return new RestrictionIndex(this);
+    }
+
     @Data
     @NoArgsConstructor
     public static class Restriction {
@@ -54,4 +65,26 @@ public class Properties {
 
     }
 
+    /**
+     * Two conditions which can not be true together in one generated object.
+     * Constraint is checked in nearest common object of fields, condition on
+     * field of child object is true if some child object has value
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Constraint {
+        @NonNull
+        private List<Condition> conditions = new ArrayList<>();
+
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Condition {
+        @NonNull
+        private String fieldPath;
+        private Object value;
+
+    }
+
 }
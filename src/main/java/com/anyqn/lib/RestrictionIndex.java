@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Restrictions of {@link Properties} indexed by interned path ids for constant
+ * time lookups
+ */
+public final class RestrictionIndex {
+
+    /**
+     * Default max restriction for paths without restriction
+     */
+    public static final int NO_MAX_RESTRICTION = Integer.MAX_VALUE;
+    /**
+     * Default min restriction for paths without restriction
+     */
+    public static final int NO_MIN_RESTRICTION = 0;
+    private static final String DOT = ".";
+
+    @Getter
+    private final PathDictionary paths = new PathDictionary();
+    private final int[] minRestrictions;
+    private final int[] maxRestrictions;
+    private final BitSet objects = new BitSet();
+    /**
+     * Constraints by id of path of object where they are checked
+     */
+    private final Map<Integer, List<Constraint>> constraints = new HashMap<>();
+
+    RestrictionIndex(@NonNull final Properties properties) {
+        // Paths with restrictions get first ids, every other path has default values
+        properties.getMinRestrictions().forEach(r -> paths.intern(r.getFieldPath()));
+        properties.getMaxRestrictions().forEach(r -> paths.intern(r.getFieldPath()));
+        properties.getObjects().forEach(o -> objects.set(paths.intern(o)));
+
+        minRestrictions = new int[paths.size()];
+        maxRestrictions = new int[paths.size()];
+        Arrays.fill(minRestrictions, NO_MIN_RESTRICTION);
+        Arrays.fill(maxRestrictions, NO_MAX_RESTRICTION);
+        properties.getMinRestrictions().forEach(r -> minRestrictions[paths.intern(r.getFieldPath())] = r.getValue());
+        properties.getMaxRestrictions().forEach(r -> maxRestrictions[paths.intern(r.getFieldPath())] = r.getValue());
+        properties.getConstraints().forEach(this::index);
+    }
+
+    /**
+     * Index constraint by path of nearest common object of fields, paths of
+     * conditions become relative to it
+     *
+     * @param constraint constraint from properties
+     */
+    private void index(final Properties.Constraint constraint) {
+        final Properties.Condition first = constraint.getConditions().get(0);
+        final Properties.Condition second = constraint.getConditions().get(1);
+        final List<String> firstPath = Arrays.asList(first.getFieldPath().split("\\."));
+        final List<String> secondPath = Arrays.asList(second.getFieldPath().split("\\."));
+        // Every condition keeps at least name of field in object
+        int common = 0;
+        while (common < Math.min(firstPath.size(), secondPath.size()) - 1
+                && firstPath.get(common).equals(secondPath.get(common))) {
+            common++;
+        }
+        final int pathId = common == 0 ? PathDictionary.ROOT
+                : paths.intern(String.join(DOT, firstPath.subList(0, common)));
+        constraints.computeIfAbsent(pathId, k -> new ArrayList<>())
+                .add(new Constraint(new Condition(firstPath.subList(common, firstPath.size()), first.getValue()),
+                        new Condition(secondPath.subList(common, secondPath.size()), second.getValue())));
+    }
+
+    /**
+     * Get id of child field path
+     *
+     * @param parentId id of parent object path or {@link PathDictionary#ROOT}
+     * @param name     name of child field
+     * @return id of path to child field
+     */
+    public int child(final int parentId, @NonNull final String name) {
+        return paths.child(parentId, name);
+    }
+
+    public int getMaxRestriction(final int pathId) {
+        return pathId < maxRestrictions.length ? maxRestrictions[pathId] : NO_MAX_RESTRICTION;
+    }
+
+    public int getMinRestriction(final int pathId) {
+        return pathId < minRestrictions.length ? minRestrictions[pathId] : NO_MIN_RESTRICTION;
+    }
+
+    public boolean isObject(final int pathId) {
+        return objects.get(pathId);
+    }
+
+    /**
+     * @param pathId id of object path or {@link PathDictionary#ROOT}
+     * @return constraints checked in object
+     */
+    List<Constraint> getConstraints(final int pathId) {
+        return constraints.getOrDefault(pathId, Collections.emptyList());
+    }
+
+    /**
+     * Get restrictions of fields under path relative to it, equal descriptions
+     * with equal subtree restrictions have equal generated variants
+     *
+     * @param pathId id of object field path
+     * @return restrictions of subtree
+     */
+    Subtree subtree(final int pathId) {
+        final String subtreePath = paths.path(pathId);
+        final String prefix = subtreePath + DOT;
+        final Map<String, Integer> min = new TreeMap<>();
+        final Map<String, Integer> max = new TreeMap<>();
+        final Set<String> objectPaths = new TreeSet<>();
+        // Paths with restrictions have first ids
+        for (int id = 0; id < minRestrictions.length; id++) {
+            final String path = paths.path(id);
+            if (path.startsWith(prefix)) {
+                final String relative = path.substring(prefix.length());
+                if (minRestrictions[id] != NO_MIN_RESTRICTION) {
+                    min.put(relative, minRestrictions[id]);
+                }
+                if (maxRestrictions[id] != NO_MAX_RESTRICTION) {
+                    max.put(relative, maxRestrictions[id]);
+                }
+                if (objects.get(id)) {
+                    objectPaths.add(relative);
+                }
+            }
+        }
+        final Map<String, List<Constraint>> subtreeConstraints = new TreeMap<>();
+        constraints.forEach((id, levelConstraints) -> {
+            final String path = id == PathDictionary.ROOT ? null : paths.path(id);
+            if (subtreePath.equals(path)) {
+                subtreeConstraints.put("", levelConstraints);
+            } else if (path != null && path.startsWith(prefix)) {
+                subtreeConstraints.put(path.substring(prefix.length()), levelConstraints);
+            }
+        });
+        return new Subtree(min, max, objectPaths, subtreeConstraints);
+    }
+
+    /**
+     * Restrictions of fields under some path by relative paths
+     */
+    @Value
+    static class Subtree {
+        Map<String, Integer> minRestrictions;
+        Map<String, Integer> maxRestrictions;
+        Set<String> objects;
+        /**
+         * Constraints by relative path of object where they are checked
+         */
+        Map<String, List<Constraint>> constraints;
+    }
+
+    /**
+     * Constraint with paths relative to object where it is checked
+     */
+    @Value
+    static class Constraint {
+        Condition first;
+        Condition second;
+    }
+
+    /**
+     * Condition with path relative to object where it is checked
+     */
+    @Value
+    static class Condition {
+        List<String> path;
+        Object value;
+    }
+
+}
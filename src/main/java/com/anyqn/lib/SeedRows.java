@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.NonNull;
+
+/**
+ * Objects of one level of previously generated suite, they are encoded to seed
+ * rows of covering array for incremental regeneration. Object is kept if all
+ * its values are still possible, fields absent in object are free and are set
+ * by coverage engine, fields absent in description are dropped. Objects with
+ * forbidden combinations of values are not kept
+ */
+final class SeedRows {
+
+    /**
+     * Objects of level, equal objects are repeated as many times as they are
+     * repeated in one list of objects
+     */
+    private final List<Map<String, Object>> objects;
+    /**
+     * Number of covering array row for every object or -1 if object is not valid
+     */
+    private final int[] rowIndexes;
+    /**
+     * Variants numbers of child objects by content, variants of kept objects go
+     * first
+     */
+    private Map<Object, List<Integer>> variantIndexes;
+
+    private SeedRows(@NonNull final Collection<? extends Map<String, Object>> objects) {
+        this.objects = new ArrayList<>(objects);
+        this.rowIndexes = new int[this.objects.size()];
+        Arrays.fill(rowIndexes, -1);
+    }
+
+    /**
+     * Collect distinct objects of previous suite
+     *
+     * @param objects previously generated suite
+     * @return objects of root level
+     */
+    static SeedRows of(@NonNull final Collection<? extends Map<String, Object>> objects) {
+        return new SeedRows(new LinkedHashSet<>(objects));
+    }
+
+    /**
+     * Collect child objects of field, equal child objects are collected as many
+     * times as they are repeated in one list, so every of them gets own variant
+     *
+     * @param field name of object field
+     * @return objects of child level
+     */
+    SeedRows child(@NonNull final String field) {
+        final Map<Object, Integer> repeats = new LinkedHashMap<>();
+        for (final Map<String, Object> object : objects) {
+            final Object value = object.get(field);
+            final List<?> children = value instanceof List ? (List<?>) value : Arrays.asList(value);
+            final Map<Object, Integer> counts = new HashMap<>();
+            children.stream().filter(Map.class::isInstance).forEach(child -> counts.merge(child, 1, Integer::sum));
+            counts.forEach((child, count) -> repeats.merge(child, count, Math::max));
+        }
+        final List<Map<String, Object>> children = new ArrayList<>();
+        repeats.forEach((child, count) -> children.addAll(Collections.nCopies(count, cast(child))));
+        return new SeedRows(children);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> cast(final Object object) {
+        return (Map<String, Object>) object;
+    }
+
+    /**
+     * Encode objects to seed rows of covering array, not valid objects are
+     * skipped
+     *
+     * @param fields    fields of level
+     * @param width     number of columns in slot table
+     * @param children  objects of child levels by field name, variants of child
+     *                  levels must be already generated
+     * @param forbidden forbidden pairs of level, objects with them are not valid
+     * @return seed rows with numbers of values and shifted variants numbers
+     */
+    List<int[]> encode(@NonNull final PlanNode.Field[] fields, final int width,
+            @NonNull final Map<String, SeedRows> children, @NonNull final ForbiddenPairs forbidden) {
+        final List<int[]> rows = new ArrayList<>();
+        for (int i = 0; i < objects.size(); i++) {
+            final int[] row = new int[width];
+            Arrays.fill(row, CoverageEngine.FREE);
+            boolean valid = true;
+            for (int f = 0; f < fields.length && valid; f++) {
+                valid = encode(objects.get(i), fields[f], children.get(fields[f].getName()), row);
+            }
+            if (valid && forbidden.allows(row)) {
+                rowIndexes[i] = rows.size();
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static boolean encode(final Map<String, Object> object, final PlanNode.Field field,
+            final SeedRows children, final int[] row) {
+        if (!object.containsKey(field.getName())) {
+            return true;
+        }
+        final Object value = object.get(field.getName());
+        if (field.isScalar()) {
+            // first equal value is canonical value
+            row[field.getColumn()] = field.getValues().indexOf(value);
+            return row[field.getColumn()] != -1;
+        }
+        if (field.getPositions() == 0) {
+            return true;
+        }
+        final List<?> childObjects;
+        if (field.isObject() && value == null) {
+            childObjects = new ArrayList<>();
+        } else if (field.isObject() && value instanceof Map) {
+            childObjects = Arrays.asList(value);
+        } else if (!field.isObject() && value instanceof List) {
+            childObjects = (List<?>) value;
+        } else {
+            return false;
+        }
+        if (childObjects.size() > field.getPositions() || childObjects.size() < field.getMandatory()) {
+            return false;
+        }
+        final Map<Object, List<Integer>> indexes = children.variantIndexes(field.getVariants());
+        final Set<Integer> used = new HashSet<>();
+        for (int position = 0; position < field.getPositions(); position++) {
+            if (position >= childObjects.size()) {
+                // skipped position
+                row[field.getColumn() + position] = 0;
+                continue;
+            }
+            final Integer variant = indexes.getOrDefault(childObjects.get(position), new ArrayList<>()).stream()
+                    .filter(used::add).findFirst().orElse(null);
+            if (variant == null) {
+                return false;
+            }
+            row[field.getColumn() + position] = position < field.getMandatory() ? variant : variant + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Index variants of child level by content
+     *
+     * @param variants generated variants of child level
+     * @return variants numbers by content of object, kept objects go first
+     */
+    private Map<Object, List<Integer>> variantIndexes(final GeneratedSuite variants) {
+        if (variantIndexes == null) {
+            variantIndexes = new HashMap<>();
+            for (int i = 0; i < objects.size(); i++) {
+                if (rowIndexes[i] != -1) {
+                    variantIndexes.computeIfAbsent(objects.get(i), k -> new ArrayList<>()).add(rowIndexes[i]);
+                }
+            }
+            for (int i = 0; i < variants.size(); i++) {
+                final List<Integer> indexes = variantIndexes.computeIfAbsent(variants.getRow(i),
+                        k -> new ArrayList<>());
+                if (!indexes.contains(i)) {
+                    indexes.add(i);
+                }
+            }
+        }
+        return variantIndexes;
+    }
+
+}
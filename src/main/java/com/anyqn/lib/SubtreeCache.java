@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Cache of generated variants of child objects. Variants are keyed by
+ * structure of object description, restrictions of fields under object and
+ * coverage engine, so identical subtrees from different paths are generated
+ * once. Order of fields is order of covering array params, so descriptions
+ * with same fields in different order are different subtrees. Cache is
+ * thread-safe and can be shared between generators
+ */
+public final class SubtreeCache {
+
+    private final Map<Key, GeneratedSuite> variants = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Get cached variants of child object or generate them
+     *
+     * @param description description of child object
+     * @param subtree     restrictions of fields under child object
+     * @param engine      engine of covering arrays
+     * @param generator   generator of variants
+     * @return possible variants of child object
+     */
+    GeneratedSuite variants(@NonNull final Map<String, List<Object>> description,
+            @NonNull final RestrictionIndex.Subtree subtree, @NonNull final CoverageEngine engine,
+            @NonNull final Supplier<GeneratedSuite> generator) {
+        final Key key = new Key(description, subtree, engine);
+        final GeneratedSuite cached = variants.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // Not computeIfAbsent, because generator fills cache recursively for nested objects
+        final GeneratedSuite generated = generator.get();
+        final GeneratedSuite previous = variants.putIfAbsent(key, generated);
+        return previous == null ? generated : previous;
+    }
+
+    /**
+     * @return statistics of cache usage
+     */
+    public @NonNull Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum(), variants.size());
+    }
+
+    /**
+     * Remove all cached variants and reset statistics
+     */
+    public void clear() {
+        variants.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Statistics of cache usage
+     */
+    @Value
+    public static class Statistics {
+        /**
+         * Number of subtrees taken from cache
+         */
+        long hits;
+        /**
+         * Number of generated subtrees
+         */
+        long misses;
+        /**
+         * Number of cached subtrees
+         */
+        int size;
+
+        /**
+         * @return part of subtrees taken from cache
+         */
+        public double getHitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    /**
+     * Structural key of subtree, hash is calculated once
+     */
+    private static final class Key {
+        /**
+         * Description with maps converted to ordered entries
+         */
+        private final Object description;
+        private final RestrictionIndex.Subtree subtree;
+        private final CoverageEngine engine;
+        private final int hash;
+
+        Key(final Map<String, List<Object>> description, final RestrictionIndex.Subtree subtree,
+                final CoverageEngine engine) {
+            this.description = ordered(description);
+            this.subtree = subtree;
+            this.engine = engine;
+            this.hash = 31 * (31 * this.description.hashCode() + subtree.hashCode()) + engine.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hash == other.hash && engine.equals(other.engine) && subtree.equals(other.subtree)
+                    && description.equals(other.description);
+        }
+
+        /**
+         * @param value description, list of values or value
+         * @return value with maps converted to ordered entries
+         */
+        private static Object ordered(final Object value) {
+            if (value instanceof Map) {
+                final List<Object> entries = new ArrayList<>();
+                for (final Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    entries.add(entry.getKey());
+                    entries.add(ordered(entry.getValue()));
+                }
+                return new OrderedMap(entries);
+            } else if (value instanceof List) {
+                return ((List<?>) value).stream().map(Key::ordered).collect(Collectors.toList());
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Keys and values of map in order of entries
+     */
+    @Value
+    private static class OrderedMap {
+        List<Object> entries;
+    }
+
+}
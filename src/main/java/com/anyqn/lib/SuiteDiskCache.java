@@ -0,0 +1,608 @@
+/*******************************************************************************
+ * Copyright 2021 Renat Eskenin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.anyqn.lib;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Persistent cache of generated suites. Suite is keyed by SHA-256 hash of
+ * canonical binary form of description, properties, coverage engine and
+ * format version. Suite is stored as dictionary of field names, dictionary of
+ * distinct values, lists and objects (child objects repeated in many variants
+ * are stored once) and column of variants. Files are memory-mapped and
+ * variants are decoded while they are streamed back without generation. Files
+ * of other format version or broken files are generated again, suites with
+ * values of types which can not be stored are generated without cache. Only
+ * class of coverage engine is part of key: configuration of engine and version
+ * of pairwise library are not, so cache must be cleared when they are changed
+ */
+public final class SuiteDiskCache {
+
+    /**
+     * Version of stored format, it is part of key and file header
+     */
+    public static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x50575343;
+    private static final String SUFFIX = ".suite";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String SHA_256 = "SHA-256";
+    private static final String UNSUPPORTED_VALUE_TYPE = "Unsupported value type [%s]";
+    private static final String BROKEN_FILE = "Broken suite file";
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte BIG_INTEGER = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte LIST = 8;
+    private static final byte MAP = 9;
+
+    /**
+     * Directory of suite files
+     */
+    @Getter
+    private final Path directory;
+
+    public SuiteDiskCache(@NonNull final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Get cached suite or generate and store it
+     *
+     * @param generator    generator of suite, its coverage engine is part of key
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @return list of possible variants of generated map, maps are read-only
+     * @throws IOException on read or write error of cache directory
+     */
+    public @NonNull List<Map<String, Object>> generate(@NonNull final PairwiseJsonGenerator generator,
+            @NonNull final Map<String, List<Object>> jsonMetadata, @NonNull final Properties properties)
+            throws IOException {
+        return stream(generator, jsonMetadata, properties).collect(Collectors.toList());
+    }
+
+    /**
+     * Get cached suite or generate and store it, cached variants are read from
+     * memory-mapped file on demand
+     *
+     * @param generator    generator of suite, its coverage engine is part of key
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @return stream of possible variants of generated map, maps are read-only
+     * @throws IOException on read or write error of cache directory
+     */
+    public @NonNull Stream<Map<String, Object>> stream(@NonNull final PairwiseJsonGenerator generator,
+            @NonNull final Map<String, List<Object>> jsonMetadata, @NonNull final Properties properties)
+            throws IOException {
+        final Path file;
+        try {
+            file = file(key(generator, jsonMetadata, properties));
+        } catch (final UnsupportedValueException e) {
+            // description can not be stored, suite is not cached
+            return generator.stream(jsonMetadata, properties);
+        }
+        if (Files.isRegularFile(file)) {
+            try {
+                return read(file);
+            } catch (final IllegalStateException | IllegalArgumentException | BufferUnderflowException
+                    | NegativeArraySizeException e) {
+                // broken file or file of other version, generate again
+            }
+        }
+        final List<Map<String, Object>> generated = generator.generate(jsonMetadata, properties);
+        try {
+            write(file, generated);
+        } catch (final UnsupportedValueException e) {
+            // variant can not be stored, suite is not cached
+        }
+        return generated.stream();
+    }
+
+    /**
+     * Remove cached suite of description
+     *
+     * @param generator    generator of suite
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @return true if suite was cached
+     * @throws IOException on delete error
+     */
+    public boolean invalidate(@NonNull final PairwiseJsonGenerator generator,
+            @NonNull final Map<String, List<Object>> jsonMetadata, @NonNull final Properties properties)
+            throws IOException {
+        try {
+            return Files.deleteIfExists(file(key(generator, jsonMetadata, properties)));
+        } catch (final UnsupportedValueException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remove all cached suites
+     *
+     * @throws IOException on delete error
+     */
+    public void clear() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (final Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Calculate key of suite: hex SHA-256 of canonical form of format version,
+     * class of coverage engine, description in order of fields and properties
+     * with restrictions sorted by path. Configuration of engine and version of
+     * pairwise library are not part of key
+     *
+     * @param generator    generator of suite
+     * @param jsonMetadata map of fields (params) for generation
+     * @param properties   restrictions to generated result
+     * @return key of suite
+     * @throws IllegalArgumentException if description has value of type which
+     *                                  can not be stored
+     */
+    public @NonNull String key(@NonNull final PairwiseJsonGenerator generator,
+            @NonNull final Map<String, List<Object>> jsonMetadata, @NonNull final Properties properties) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(SHA_256);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(final int b) {
+                // only digest is needed
+            }
+        }, digest))) {
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, generator.getOptions().getEngine().getClass().getName());
+            writeTree(out, jsonMetadata);
+            writeRestrictions(out, properties.getMinRestrictions());
+            writeRestrictions(out, properties.getMaxRestrictions());
+            final TreeSet<String> objects = new TreeSet<>(properties.getObjects());
+            out.writeInt(objects.size());
+            for (final String object : objects) {
+                writeString(out, object);
+            }
+            out.writeInt(properties.getConstraints().size());
+            for (final Properties.Constraint constraint : properties.getConstraints()) {
+                out.writeInt(constraint.getConditions().size());
+                for (final Properties.Condition condition : constraint.getConditions()) {
+                    writeString(out, condition.getFieldPath());
+                    writeTree(out, condition.getValue());
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        final StringBuilder key = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    private Path file(final String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static void writeRestrictions(final DataOutputStream out, final List<Properties.Restriction> restrictions)
+            throws IOException {
+        final List<Properties.Restriction> sorted = new ArrayList<>(restrictions);
+        sorted.sort(Comparator.comparing(Properties.Restriction::getFieldPath));
+        out.writeInt(sorted.size());
+        for (final Properties.Restriction restriction : sorted) {
+            writeString(out, restriction.getFieldPath());
+            out.writeInt(restriction.getValue());
+        }
+    }
+
+    /**
+     * Write value, list or map with type tags
+     *
+     * @param out   output
+     * @param value value
+     */
+    private static void writeTree(final DataOutputStream out, final Object value) throws IOException {
+        if (value instanceof List) {
+            out.writeByte(LIST);
+            out.writeInt(((List<?>) value).size());
+            for (final Object element : (List<?>) value) {
+                writeTree(out, element);
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            out.writeInt(((Map<?, ?>) value).size());
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeScalar(out, entry.getKey());
+                writeTree(out, entry.getValue());
+            }
+        } else {
+            writeScalar(out, value);
+        }
+    }
+
+    private static void writeScalar(final DataOutputStream out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else {
+            throw new UnsupportedValueException(String.format(UNSUPPORTED_VALUE_TYPE, value.getClass()));
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Write suite to temporary file and move it to cache
+     *
+     * @param file  file of suite
+     * @param suite generated suite
+     */
+    private void write(final Path file, final List<Map<String, Object>> suite) throws IOException {
+        final Encoder encoder = new Encoder();
+        final int[] rows = suite.stream().mapToInt(encoder::node).toArray();
+
+        Files.createDirectories(directory);
+        final Path temp = Files.createTempFile(directory, file.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(encoder.keys.size());
+                for (final String key : encoder.keys.keySet()) {
+                    writeString(out, key);
+                }
+                out.writeInt(encoder.nodes.size());
+                encoder.bytes.writeTo(out);
+                out.writeInt(rows.length);
+                for (final int row : rows) {
+                    out.writeInt(row);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Read suite from memory-mapped file, dictionary of field names is read at
+     * once, nodes are checked and only their offsets are kept. Variants are
+     * decoded from mapped file when stream reaches them
+     *
+     * @param file file of suite
+     * @return stream of variants
+     */
+    @SuppressWarnings("unchecked")
+    private static Stream<Map<String, Object>> read(final Path file) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        check(buffer.remaining() >= 2 * Integer.BYTES && buffer.getInt() == MAGIC);
+        check(buffer.getInt() == FORMAT_VERSION);
+
+        final String[] keys = new String[buffer.getInt()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = readString(buffer);
+        }
+        // Children of node are written before node
+        final int[] offsets = new int[buffer.getInt()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = buffer.position();
+            skipNode(buffer, keys.length, i);
+        }
+        final int rowsCount = buffer.getInt();
+        final int rowsOffset = buffer.position();
+        check(rowsCount >= 0 && buffer.remaining() == (long) rowsCount * Integer.BYTES);
+        for (int row = 0; row < rowsCount; row++) {
+            final int node = index(buffer.getInt(rowsOffset + row * Integer.BYTES), offsets.length);
+            check(buffer.get(offsets[node]) == MAP);
+        }
+        return IntStream.range(0, rowsCount).mapToObj(row -> (Map<String, Object>) readNode(buffer, keys, offsets,
+                buffer.getInt(rowsOffset + row * Integer.BYTES)));
+    }
+
+    /**
+     * Check node and move buffer to next node
+     *
+     * @param buffer    buffer at start of node
+     * @param keysCount number of field names
+     * @param count     number of node, children have lower numbers
+     */
+    private static void skipNode(final ByteBuffer buffer, final int keysCount, final int count) {
+        final byte tag = buffer.get();
+        switch (tag) {
+        case LIST:
+            for (int i = buffer.getInt(); i > 0; i--) {
+                index(buffer.getInt(), count);
+            }
+            break;
+        case MAP:
+            for (int i = buffer.getInt(); i > 0; i--) {
+                index(buffer.getInt(), keysCount);
+                index(buffer.getInt(), count);
+            }
+            break;
+        case NULL:
+            break;
+        case STRING:
+        case BIG_INTEGER:
+        case BIG_DECIMAL:
+            final int length = buffer.getInt();
+            check(length >= 0 && length <= buffer.remaining());
+            buffer.position(buffer.position() + length);
+            break;
+        case INTEGER:
+            buffer.getInt();
+            break;
+        case LONG:
+            buffer.getLong();
+            break;
+        case DOUBLE:
+            buffer.getDouble();
+            break;
+        case BOOLEAN:
+            buffer.get();
+            break;
+        default:
+            throw new IllegalStateException(BROKEN_FILE);
+        }
+    }
+
+    /**
+     * Decode checked node, buffer is not moved, so nodes can be decoded
+     * concurrently
+     *
+     * @param mapped  mapped file
+     * @param keys    field names
+     * @param offsets offsets of nodes
+     * @param node    number of node
+     * @return value, read-only list or read-only map
+     */
+    private static Object readNode(final ByteBuffer mapped, final String[] keys, final int[] offsets,
+            final int node) {
+        final ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offsets[node]);
+        final byte tag = buffer.get();
+        switch (tag) {
+        case LIST:
+            final List<Object> list = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                list.add(readNode(mapped, keys, offsets, buffer.getInt()));
+            }
+            return Collections.unmodifiableList(list);
+        case MAP:
+            final Map<String, Object> map = new LinkedHashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                final String key = keys[buffer.getInt()];
+                map.put(key, readNode(mapped, keys, offsets, buffer.getInt()));
+            }
+            return Collections.unmodifiableMap(map);
+        case NULL:
+            return null;
+        case STRING:
+            return readString(buffer);
+        case INTEGER:
+            return buffer.getInt();
+        case LONG:
+            return buffer.getLong();
+        case DOUBLE:
+            return buffer.getDouble();
+        case BOOLEAN:
+            return buffer.get() != 0;
+        case BIG_INTEGER:
+            return new BigInteger(readString(buffer));
+        case BIG_DECIMAL:
+            return new BigDecimal(readString(buffer));
+        default:
+            throw new IllegalStateException(BROKEN_FILE);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        check(length >= 0 && length <= buffer.remaining());
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int index(final int index, final int count) {
+        check(index >= 0 && index < count);
+        return index;
+    }
+
+    private static void check(final boolean valid) {
+        if (!valid) {
+            throw new IllegalStateException(BROKEN_FILE);
+        }
+    }
+
+    /**
+     * Encoder of variants to dictionaries, equal values, lists and objects get
+     * one node number
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> keys = new LinkedHashMap<>();
+        /**
+         * Node numbers by value or by numbers of children for lists and objects
+         */
+        private final Map<Object, Integer> nodes = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        int node(final Object value) {
+            try {
+                if (value instanceof List) {
+                    final int[] children = ((List<?>) value).stream().mapToInt(this::node).toArray();
+                    return intern(new Structure(LIST, children), () -> {
+                        out.writeByte(LIST);
+                        out.writeInt(children.length);
+                        for (final int child : children) {
+                            out.writeInt(child);
+                        }
+                    });
+                } else if (value instanceof Map) {
+                    final int[] children = new int[((Map<?, ?>) value).size() * 2];
+                    int i = 0;
+                    for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        children[i++] = keys.computeIfAbsent((String) entry.getKey(), k -> keys.size());
+                        children[i++] = node(entry.getValue());
+                    }
+                    return intern(new Structure(MAP, children), () -> {
+                        out.writeByte(MAP);
+                        out.writeInt(children.length / 2);
+                        for (final int child : children) {
+                            out.writeInt(child);
+                        }
+                    });
+                }
+                return intern(value == null ? Structure.NULL_VALUE : value, () -> writeScalar(out, value));
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private int intern(final Object key, final NodeWriter writer) throws IOException {
+            final Integer node = nodes.get(key);
+            if (node != null) {
+                return node;
+            }
+            writer.write();
+            nodes.put(key, nodes.size());
+            return nodes.size() - 1;
+        }
+    }
+
+    /**
+     * Value of description or variant has type which can not be stored, such
+     * suites are generated without cache
+     */
+    private static final class UnsupportedValueException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedValueException(final String message) {
+            super(message);
+        }
+    }
+
+    @FunctionalInterface
+    private interface NodeWriter {
+        void write() throws IOException;
+    }
+
+    /**
+     * Key of list or object node by numbers of children
+     */
+    private static final class Structure {
+        private static final Structure NULL_VALUE = new Structure(NULL, new int[0]);
+        private final byte tag;
+        private final int[] children;
+
+        Structure(final byte tag, final int[] children) {
+            this.tag = tag;
+            this.children = children;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tag + Arrays.hashCode(children);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Structure && tag == ((Structure) o).tag
+                    && Arrays.equals(children, ((Structure) o).children);
+        }
+    }
+
+}
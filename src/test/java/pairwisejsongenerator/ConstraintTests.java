@@ -0,0 +1,161 @@
+package pairwisejsongenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.anyqn.lib.CoverageEngine;
+import com.anyqn.lib.CoverageReport;
+import com.anyqn.lib.CoverageVerifier;
+import com.anyqn.lib.GenerationOptions;
+import com.anyqn.lib.IpogCoverageEngine;
+import com.anyqn.lib.PairwiseJsonGenerator;
+import com.anyqn.lib.PairwiserCoverageEngine;
+import com.anyqn.lib.Properties;
+import com.anyqn.lib.Properties.Condition;
+import com.anyqn.lib.Properties.Constraint;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ConstraintTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static Stream<CoverageEngine> engines() {
+        return Stream.of(new PairwiserCoverageEngine(), new IpogCoverageEngine());
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check forbidden values of root fields are never generated together")
+    @MethodSource("engines")
+    void testRootConstraint(final CoverageEngine engine) throws JsonProcessingException {
+        final Map<String, List<Object>> source = description(
+                "{'fieldA':['a1','a2','a3'],'fieldB':['b1','b2','b3'],'fieldC':['c1','c2']}");
+        final Properties properties = properties(constraint("fieldA", "a1", "fieldB", "b1"));
+
+        final List<Map<String, Object>> generated = generator(engine).generate(source, properties);
+
+        assertThat(generated).noneMatch(o -> "a1".equals(o.get("fieldA")) && "b1".equals(o.get("fieldB")));
+        for (final Object a : source.get("fieldA")) {
+            for (final Object b : source.get("fieldB")) {
+                if (!"a1".equals(a) || !"b1".equals(b)) {
+                    assertThat(generated).as("Check pair %s %s", a, b)
+                            .anyMatch(o -> a.equals(o.get("fieldA")) && b.equals(o.get("fieldB")));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check forbidden values of root field and child object field are never generated together")
+    @MethodSource("engines")
+    void testNestedConstraint(final CoverageEngine engine) throws JsonProcessingException {
+        final Map<String, List<Object>> source = description(
+                "{'fieldA':['a1','a2'],'fieldD':[{'subFieldA':['s1','s2','s3'],'subFieldB':['t1','t2']}]}");
+        final Properties properties = properties(constraint("fieldA", "a1", "fieldD.subFieldA", "s1"));
+
+        final List<Map<String, Object>> generated = generator(engine).generate(source, properties);
+
+        assertThat(generated).noneMatch(o -> "a1".equals(o.get("fieldA")) && children(o).anyMatch(
+                child -> "s1".equals(child.get("subFieldA"))));
+        assertThat(generated).anyMatch(o -> "a2".equals(o.get("fieldA"))
+                && children(o).anyMatch(child -> "s1".equals(child.get("subFieldA"))));
+        assertThat(generated).anyMatch(o -> "a1".equals(o.get("fieldA"))
+                && children(o).anyMatch(child -> "s2".equals(child.get("subFieldA"))));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check forbidden values of fields of one child object are never generated together")
+    @MethodSource("engines")
+    void testChildConstraint(final CoverageEngine engine) throws JsonProcessingException {
+        final Map<String, List<Object>> source = description(
+                "{'fieldA':['a1','a2'],'fieldD':[{'subFieldA':['s1','s2'],'subFieldB':['t1','t2']}]}");
+        final Properties properties = properties(constraint("fieldD.subFieldA", "s1", "fieldD.subFieldB", "t1"));
+
+        final List<Map<String, Object>> generated = generator(engine).generate(source, properties);
+
+        assertThat(generated.stream().flatMap(ConstraintTests::children)).isNotEmpty()
+                .noneMatch(child -> "s1".equals(child.get("subFieldA")) && "t1".equals(child.get("subFieldB")));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check constrained suite covers all allowed pairs and forbidden pairs are reported")
+    @MethodSource("engines")
+    void testConstrainedCoverage(final CoverageEngine engine) throws JsonProcessingException {
+        final Map<String, List<Object>> source = description(
+                "{'fieldA':['a1','a2','a3'],'fieldD':[{'subFieldA':['s1','s2','s3'],'subFieldB':['t1','t2']}]}");
+        final Properties properties = properties(constraint("fieldA", "a1", "fieldD.subFieldA", "s1"),
+                constraint("fieldD.subFieldA", "s2", "fieldD.subFieldB", "t2"));
+        final CoverageVerifier verifier = new CoverageVerifier();
+
+        final List<Map<String, Object>> generated = generator(engine).generate(source, properties);
+        final CoverageReport report = verifier.verify(source, properties, generated);
+        assertThat(report.getMissingPairs()).isEmpty();
+        assertThat(report.getViolations()).isEmpty();
+
+        final List<Map<String, Object>> unconstrained = generator(engine).generate(source, properties());
+        assertThat(verifier.verify(source, properties, unconstrained).getViolations()).isNotEmpty()
+                .allMatch(violation -> violation.contains("forbidden"));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check constraint with path or value which is not in description is rejected")
+    @MethodSource("engines")
+    void testUnknownConstraint(final CoverageEngine engine) throws JsonProcessingException {
+        final Map<String, List<Object>> source = description(
+                "{'fieldA':['a1','a2'],'fieldD':[{'subFieldA':['s1','s2'],'subFieldB':['t1','t2']}]}");
+
+        assertThatThrownBy(() -> generator(engine).generate(source, properties(constraint("fieldA", "a1",
+                "fieldD.subFieldC", "s1")))).isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("fieldD.subFieldC");
+        assertThatThrownBy(() -> generator(engine).generate(source, properties(constraint("fieldA", "a3",
+                "fieldD.subFieldA", "s1")))).isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("a3");
+        assertThatThrownBy(() -> new CoverageVerifier().verify(source, properties(constraint("fieldA", "a1",
+                "fieldD", "s1")), Collections.emptyList())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static PairwiseJsonGenerator generator(final CoverageEngine engine) {
+        return new PairwiseJsonGenerator(GenerationOptions.builder().engine(engine).build());
+    }
+
+    private static Stream<Map<?, ?>> children(final Map<String, Object> object) {
+        return ((List<?>) object.get("fieldD")).stream().map(Map.class::cast);
+    }
+
+    private static Map<String, List<Object>> description(final String json) throws JsonProcessingException {
+        return MAPPER.readValue(json.replace('\'', '"'), new TypeReference<Map<String, List<Object>>>() {
+        });
+    }
+
+    private static Properties properties(final Constraint... constraints) {
+        final Properties properties = new Properties();
+        properties.setConstraints(Arrays.asList(constraints));
+        return properties;
+    }
+
+    private static Constraint constraint(final String fieldPath, final Object value, final String otherFieldPath,
+            final Object otherValue) {
+        final Constraint constraint = new Constraint();
+        constraint.setConditions(Arrays.asList(condition(fieldPath, value), condition(otherFieldPath, otherValue)));
+        return constraint;
+    }
+
+    private static Condition condition(final String fieldPath, final Object value) {
+        final Condition condition = new Condition();
+        condition.setFieldPath(fieldPath);
+        condition.setValue(value);
+        return condition;
+    }
+
+}
@@ -0,0 +1,163 @@
+package pairwisejsongenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.anyqn.lib.CoverageEngine;
+import com.anyqn.lib.CoverageTable;
+import com.anyqn.lib.ForbiddenPairs;
+import com.anyqn.lib.IpogCoverageEngine;
+import com.anyqn.lib.PairwiserCoverageEngine;
+
+class CoverageEngineTests {
+
+    static Stream<int[]> domainSizes() {
+        return Stream.of(new int[] { 3 }, new int[] { 2, 3 }, new int[] { 3, 3, 3, 3 },
+                new int[] { 1, 4, 2, 3, 5, 2 }, new int[] { 5, 5, 5, 5, 5, 5, 5, 5 },
+                new int[] { 10, 2, 2, 2, 2, 2, 2, 2, 2, 2 });
+    }
+
+    static Stream<Arguments> engines() {
+        return Stream.of(new IpogCoverageEngine(), new PairwiserCoverageEngine())
+                .flatMap(engine -> domainSizes().map(domain -> Arguments.of(engine, domain)));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check covering array contains every pair of values of different params")
+    @MethodSource("engines")
+    void testPairsCovered(final CoverageEngine engine, final int[] domainSizes) {
+        final CoverageTable table = engine.cover(domainSizes);
+
+        final boolean[][][][] covered = new boolean[domainSizes.length][domainSizes.length][][];
+        for (int row = 0; row < table.getRowsCount(); row++) {
+            final int[] values = table.getRow(row);
+            assertThat(values).hasSize(domainSizes.length);
+            for (int first = 0; first < values.length; first++) {
+                assertThat(values[first]).isBetween(0, domainSizes[first] - 1);
+                for (int second = first; second < values.length; second++) {
+                    if (covered[first][second] == null) {
+                        covered[first][second] = new boolean[domainSizes[first]][domainSizes[second]];
+                    }
+                    covered[first][second][values[first]][values[second]] = true;
+                }
+            }
+        }
+        for (int first = 0; first < domainSizes.length; first++) {
+            for (int second = first + 1; second < domainSizes.length; second++) {
+                for (int a = 0; a < domainSizes[first]; a++) {
+                    for (int b = 0; b < domainSizes[second]; b++) {
+                        assertThat(covered[first][second][a][b]).as("Check pair %s=%s %s=%s", first, a, second, b)
+                                .isTrue();
+                    }
+                }
+            }
+            for (int a = 0; a < domainSizes[first]; a++) {
+                assertThat(covered[first][first][a][a]).as("Check value %s=%s", first, a).isTrue();
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check built in engine returns at most twice rows of pairs of two largest params")
+    @MethodSource("domainSizes")
+    void testIpogRowsCount(final int[] domainSizes) {
+        final CoverageTable table = new IpogCoverageEngine().cover(domainSizes);
+
+        // Every pair of values of two largest params needs own row, IPOG is close to it
+        final int[] sorted = Arrays.stream(domainSizes).sorted().toArray();
+        final int pairs = sorted[sorted.length - 1] * (sorted.length > 1 ? sorted[sorted.length - 2] : 1);
+        assertThat(table.getRowsCount()).isBetween(pairs, 2 * pairs);
+        assertThat(new IpogCoverageEngine().cover(domainSizes).getRow(0)).as("Check engine is deterministic")
+                .isEqualTo(table.getRow(0));
+    }
+
+    @Test
+    @DisplayName("Check built in engine covers every pair of some allowed row with random forbidden pairs and seeds")
+    void testIpogForbiddenPairs() {
+        final Random random = new Random(42);
+        for (int run = 0; run < 3000; run++) {
+            final int[] domainSizes = random.ints(2 + random.nextInt(4), 1, 5).toArray();
+            final ForbiddenPairs forbidden = new ForbiddenPairs(domainSizes);
+            for (int i = random.nextInt(6); i > 0; i--) {
+                final int first = random.nextInt(domainSizes.length);
+                final int second = (first + 1 + random.nextInt(domainSizes.length - 1)) % domainSizes.length;
+                forbidden.forbid(first, random.nextInt(domainSizes[first]), second,
+                        random.nextInt(domainSizes[second]));
+            }
+            final List<int[]> allowedRows = new ArrayList<>();
+            rows(domainSizes, new int[domainSizes.length], 0, forbidden, allowedRows);
+            final List<int[]> seed = new ArrayList<>();
+            for (int i = allowedRows.isEmpty() ? 0 : random.nextInt(3); i > 0; i--) {
+                final int[] row = allowedRows.get(random.nextInt(allowedRows.size())).clone();
+                for (int param = 0; param < row.length; param++) {
+                    if (random.nextBoolean()) {
+                        row[param] = CoverageEngine.FREE;
+                    }
+                }
+                seed.add(row);
+            }
+
+            final CoverageTable table = new IpogCoverageEngine().extend(domainSizes, seed, forbidden);
+
+            final Set<List<Integer>> expected = new HashSet<>();
+            allowedRows.forEach(row -> expected.addAll(pairs(row)));
+            final Set<List<Integer>> covered = new HashSet<>();
+            for (int row = 0; row < table.getRowsCount(); row++) {
+                final int[] values = table.getRow(row);
+                assertThat(forbidden.allows(values)).as("Check row %s of run %s is allowed", row, run).isTrue();
+                if (row < seed.size()) {
+                    for (int param = 0; param < values.length; param++) {
+                        if (seed.get(row)[param] != CoverageEngine.FREE) {
+                            assertThat(values[param]).as("Check seed row %s of run %s is kept", row, run)
+                                    .isEqualTo(seed.get(row)[param]);
+                        }
+                    }
+                }
+                covered.addAll(pairs(values));
+            }
+            assertThat(covered).as("Check pairs of run %s with domains %s", run, Arrays.toString(domainSizes))
+                    .containsAll(expected);
+        }
+    }
+
+    /**
+     * Collect all rows without forbidden pairs
+     */
+    private static void rows(final int[] domainSizes, final int[] row, final int param,
+            final ForbiddenPairs forbidden, final List<int[]> rows) {
+        if (param == row.length) {
+            if (forbidden.allows(row)) {
+                rows.add(row.clone());
+            }
+            return;
+        }
+        for (int value = 0; value < domainSizes[param]; value++) {
+            row[param] = value;
+            rows(domainSizes, row, param + 1, forbidden, rows);
+        }
+    }
+
+    private static List<List<Integer>> pairs(final int[] row) {
+        final List<List<Integer>> pairs = new ArrayList<>();
+        for (int first = 0; first < row.length; first++) {
+            for (int second = first + 1; second < row.length; second++) {
+                pairs.add(Arrays.asList(first, row[first], second, row[second]));
+            }
+        }
+        return pairs;
+    }
+
+}
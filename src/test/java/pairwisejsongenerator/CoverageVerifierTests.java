@@ -0,0 +1,168 @@
+package pairwisejsongenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import com.anyqn.lib.CoverageReport;
+import com.anyqn.lib.CoverageVerifier;
+import com.anyqn.lib.GenerationBudget;
+import com.anyqn.lib.GenerationOptions;
+import com.anyqn.lib.GenerationPlan;
+import com.anyqn.lib.IpogCoverageEngine;
+import com.anyqn.lib.PairwiseJsonGenerator;
+import com.anyqn.lib.Properties;
+import com.anyqn.lib.Properties.Restriction;
+
+import lombok.extern.slf4j.Slf4j;
+import provider.BaseDataArgumentsProvider;
+import provider.TestData.Case;
+
+@Slf4j
+class CoverageVerifierTests {
+
+    @ParameterizedTest
+    @DisplayName("Check generated, built in engine and minimized suites cover all pairs")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testCompleteCoverage(final Case testCase) {
+        final CoverageVerifier verifier = new CoverageVerifier();
+        final GenerationPlan plan = new PairwiseJsonGenerator().compile(testCase.getSource(),
+                testCase.getProperties());
+
+        final CoverageReport report = verifier.verify(testCase.getSource(), testCase.getProperties(),
+                plan.generate());
+        log.info("Verified pairs {}", report.getExpectedPairs());
+        assertThat(report.getMissingPairs()).isEmpty();
+        assertThat(report.getViolations()).isEmpty();
+        assertThat(report.isComplete()).isTrue();
+        assertThat(report.getCoverage()).isEqualTo(1.0);
+        assertThat(report.getCoveredPairs()).isEqualTo(report.getExpectedPairs()).isPositive();
+
+        assertThat(verifier.verify(testCase.getSource(), testCase.getProperties(),
+                new PairwiseJsonGenerator(GenerationOptions.builder().engine(new IpogCoverageEngine()).build())
+                        .generate(testCase.getSource(), testCase.getProperties()))
+                .getMissingPairs()).as("Check built in engine suite").isEmpty();
+        assertThat(verifier.verify(testCase.getSource(), testCase.getProperties(), plan.minimize().getCases())
+                .isComplete()).as("Check minimized suite").isTrue();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check missing pairs and violations are reported")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testIncompleteCoverage(final Case testCase) {
+        final CoverageVerifier verifier = new CoverageVerifier(1);
+        final GenerationPlan plan = new PairwiseJsonGenerator().compile(testCase.getSource(),
+                testCase.getProperties());
+        final List<Map<String, Object>> generated = plan.generate();
+        final List<Map<String, Object>> first = plan.prioritize(GenerationBudget.builder().maxRows(1).build())
+                .getCases();
+
+        final CoverageReport report = verifier.verify(testCase.getSource(), testCase.getProperties(), first);
+        assertThat(report.getViolationsCount()).isZero();
+        assertThat(report.getMissingPairsCount()).isEqualTo(report.getExpectedPairs() - report.getCoveredPairs());
+        assertThat(report.getMissingPairs()).hasSize((int) Math.min(1, report.getMissingPairsCount()));
+        if (generated.size() > 1) {
+            assertThat(report.isComplete()).isFalse();
+        }
+
+        final List<Map<String, Object>> broken = new ArrayList<>(generated);
+        final Map<String, Object> unknown = new HashMap<>(generated.get(0));
+        unknown.put(unknown.keySet().iterator().next(), new Object());
+        broken.add(unknown);
+        final Map<String, Object> missing = new HashMap<>(generated.get(0));
+        missing.remove(missing.keySet().iterator().next());
+        broken.add(missing);
+        final CoverageReport brokenReport = verifier.verify(testCase.getSource(), testCase.getProperties(), broken);
+        assertThat(brokenReport.getViolationsCount()).isEqualTo(2);
+        assertThat(brokenReport.getViolations()).hasSize(1);
+        assertThat(brokenReport.getMissingPairs()).isEmpty();
+        assertThat(brokenReport.isComplete()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Check large suite with many distinct child objects is verified")
+    void testLargeSuite() {
+        final Map<String, List<Object>> child = new LinkedHashMap<>();
+        child.put("x", IntStream.range(0, 300).boxed().collect(Collectors.toList()));
+        child.put("y", Arrays.asList("a", "b"));
+        final Map<String, List<Object>> description = new LinkedHashMap<>();
+        for (int f = 0; f < 6; f++) {
+            description.put("field" + f, IntStream.range(0, 20).boxed().collect(Collectors.toList()));
+        }
+        description.put("fieldD", Arrays.asList(child));
+        final Properties properties = new Properties();
+        properties.setMaxRestrictions(Arrays.asList(restriction("fieldD", 3)));
+
+        final Random random = new Random(1);
+        final List<Map<String, Object>> suite = new ArrayList<>();
+        for (int row = 0; row < 200_000; row++) {
+            final Map<String, Object> object = new HashMap<>();
+            for (int f = 0; f < 6; f++) {
+                object.put("field" + f, random.nextInt(20));
+            }
+            object.put("fieldD", random.ints(0, 600).distinct().limit(1 + random.nextInt(3))
+                    .mapToObj(c -> childObject(c % 300, c < 300 ? "a" : "b")).collect(Collectors.toList()));
+            suite.add(object);
+        }
+
+        final CoverageReport report = assertTimeoutPreemptively(Duration.ofMinutes(1),
+                () -> new CoverageVerifier().verify(description, properties, suite));
+        log.info("Verified pairs {} of {}", report.getCoveredPairs(), report.getExpectedPairs());
+        assertThat(report.getViolations()).isEmpty();
+        assertThat(report.getExpectedPairs()).isGreaterThan(600L * 599 / 2);
+        assertThat(report.getMissingPairsCount()).isEqualTo(report.getExpectedPairs() - report.getCoveredPairs());
+        assertThat(report.getMissingPairs()).hasSize((int) Math.min(CoverageVerifier.DEFAULT_MAX_REPORTED,
+                report.getMissingPairsCount()));
+    }
+
+    @Test
+    @DisplayName("Check too many pairs of one object field are rejected with clear message")
+    void testTooManyPairs() {
+        final Map<String, List<Object>> child = new HashMap<>();
+        child.put("x", IntStream.range(0, 70_000).boxed().collect(Collectors.toList()));
+        final Map<String, List<Object>> description = new HashMap<>();
+        description.put("fieldD", Arrays.asList(child));
+        final Properties properties = new Properties();
+        properties.setMaxRestrictions(Arrays.asList(restriction("fieldD", 2)));
+        final List<Map<String, Object>> suite = IntStream.range(0, 35_000)
+                .mapToObj(row -> Collections.<String, Object>singletonMap("fieldD",
+                        Arrays.asList(Collections.singletonMap("x", 2 * row),
+                                Collections.singletonMap("x", 2 * row + 1))))
+                .collect(Collectors.toList());
+
+        assertThatThrownBy(() -> new CoverageVerifier().verify(description, properties, suite))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("fieldD");
+    }
+
+    private static Map<String, Object> childObject(final int x, final String y) {
+        final Map<String, Object> object = new HashMap<>();
+        object.put("x", x);
+        object.put("y", y);
+        return object;
+    }
+
+    private static Restriction restriction(final String fieldPath, final int value) {
+        final Restriction restriction = new Restriction();
+        restriction.setFieldPath(fieldPath);
+        restriction.setValue(value);
+        return restriction;
+    }
+
+}
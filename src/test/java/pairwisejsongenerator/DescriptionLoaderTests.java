@@ -0,0 +1,54 @@
+package pairwisejsongenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import com.anyqn.lib.DescriptionLoader;
+import com.anyqn.lib.GenerationRequest;
+import com.anyqn.lib.PairwiseJsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import provider.BaseDataArgumentsProvider;
+import provider.TestData.Case;
+
+class DescriptionLoaderTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final DescriptionLoader loader = new DescriptionLoader();
+
+    @ParameterizedTest
+    @DisplayName("Check streamed description gives same variants as converted description")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testLoadedDescription(final Case testCase) throws IOException {
+        final GenerationRequest request = loader.load(new StringReader(mapper.writeValueAsString(testCase)));
+
+        assertThat(request.getMetadata()).isEqualTo(testCase.getSource());
+        assertThat(request.getProperties()).isEqualTo(testCase.getProperties());
+
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+        assertThat(gen.generate(request.getMetadata(), request.getProperties()))
+                .containsExactlyElementsOf(gen.generate(testCase.getSource(), testCase.getProperties()));
+    }
+
+    @Test
+    @DisplayName("Check invalid descriptions are rejected while reading")
+    void testInvalidDescription() {
+        assertThatThrownBy(() -> loader.load(new StringReader("{\"source\":{\"field.A\":[1]}}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> loader.load(new StringReader("{\"source\":{\"fieldA\":1}}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> loader.load(new StringReader("{\"source\":{\"fieldA\":[{\"subFieldA\":1}]}}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> loader.load(new StringReader("{\"properties\":{}}")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -1,16 +1,56 @@
 package pairwisejsongenerator;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
+import com.anyqn.lib.BatchGenerator;
+import com.anyqn.lib.CoverageEngine;
+import com.anyqn.lib.CoverageReport;
+import com.anyqn.lib.CoverageTable;
+import com.anyqn.lib.CoverageVerifier;
+import com.anyqn.lib.GeneratedSuite;
+import com.anyqn.lib.GenerationBudget;
+import com.anyqn.lib.GenerationListener;
+import com.anyqn.lib.GenerationOptions;
+import com.anyqn.lib.GenerationPlan;
+import com.anyqn.lib.GenerationRequest;
+import com.anyqn.lib.HistogramGenerationListener;
+import com.anyqn.lib.HistogramGenerationListener.PathStatistics;
+import com.anyqn.lib.IpogCoverageEngine;
+import com.anyqn.lib.MinimizedSuite;
 import com.anyqn.lib.PairwiseJsonGenerator;
+import com.anyqn.lib.PrioritizedSuite;
+import com.anyqn.lib.Properties;
+import com.anyqn.lib.Properties.Restriction;
+import com.anyqn.lib.SubtreeCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
 import provider.BaseDataArgumentsProvider;
@@ -41,4 +81,369 @@ class GeneratorTests {
                 .overridingErrorMessage("We have not allowed response").containsAll(testCase.getExpected());
     }
 
+    @ParameterizedTest
+    @DisplayName("Check lazy stream returns same variants as generated list")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testStreamedVariants(final Case testCase) {
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+
+        final List<Map<String, Object>> streamed = gen.stream(testCase.getSource(), testCase.getProperties())
+                .collect(Collectors.toList());
+
+        assertThat(streamed).as("Check streamed variants are deduplicated").doesNotHaveDuplicates()
+                .containsExactlyElementsOf(gen.generate(testCase.getSource(), testCase.getProperties()));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check compiled plan can be reused concurrently")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testCompiledPlan(final Case testCase) {
+        final GenerationPlan plan = new PairwiseJsonGenerator().compile(testCase.getSource(),
+                testCase.getProperties());
+
+        final List<Map<String, Object>> generated = plan.generate();
+
+        assertThat(IntStream.range(0, 4).parallel().mapToObj(i -> plan.generate()))
+                .as("Check repeated generation returns same variants").allMatch(generated::equals);
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check parallel generation returns same variants as sequential")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testParallelVariants(final Case testCase) {
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator(
+                GenerationOptions.builder().parallel(true).build());
+
+        assertThat(gen.generate(testCase.getSource(), testCase.getProperties())).containsExactlyElementsOf(
+                new PairwiseJsonGenerator().generate(testCase.getSource(), testCase.getProperties()));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check shared subtree cache reuses generated child objects")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testSubtreeCache(final Case testCase) {
+        final SubtreeCache cache = new SubtreeCache();
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator(
+                GenerationOptions.builder().subtreeCache(cache).build());
+
+        final List<Map<String, Object>> generated = gen.generate(testCase.getSource(), testCase.getProperties());
+        final SubtreeCache.Statistics first = cache.getStatistics();
+
+        assertThat(gen.generate(testCase.getSource(), testCase.getProperties()))
+                .containsExactlyElementsOf(generated);
+        assertThat(cache.getStatistics().getMisses()).as("Check second generation takes subtrees from cache")
+                .isEqualTo(first.getMisses());
+    }
+
+    @Test
+    @DisplayName("Check child objects with same fields in different order are not taken from cache")
+    void testSubtreeCacheFieldsOrder() throws JsonProcessingException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final Map<String, List<Object>> siblings = mapper.readValue(
+                "{\"fieldA\":[{\"x\":[1,2],\"y\":[\"a\",\"b\",\"c\"]}],"
+                        + "\"fieldB\":[{\"y\":[\"a\",\"b\",\"c\"],\"x\":[1,2]}]}",
+                new TypeReference<Map<String, List<Object>>>() {
+                });
+        final Properties properties = new Properties();
+        properties.setObjects(new HashSet<>(Arrays.asList("fieldA", "fieldB")));
+        properties.setMaxRestrictions(Arrays.asList(restriction("fieldA", 1), restriction("fieldB", 1)));
+        final SubtreeCache cache = new SubtreeCache();
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator(
+                GenerationOptions.builder().subtreeCache(cache).build());
+
+        gen.generate(siblings, properties);
+        assertThat(cache.getStatistics().getHits()).isZero();
+        assertThat(cache.getStatistics().getSize()).isEqualTo(2);
+
+        // Second sibling alone gets its own variants from shared cache
+        final Map<String, List<Object>> second = new HashMap<>();
+        second.put("fieldA", siblings.get("fieldB"));
+        assertThat(gen.generate(second, properties))
+                .containsExactlyElementsOf(new PairwiseJsonGenerator().generate(second, properties));
+    }
+
+    @Test
+    @DisplayName("Check every of more than ten positions of object field is mapped back to its slot")
+    void testManyPositions() {
+        final int positions = 12;
+        final Map<String, List<Object>> child = new HashMap<>();
+        child.put("x", IntStream.range(0, positions).boxed().collect(Collectors.toList()));
+        final Map<String, List<Object>> description = new LinkedHashMap<>();
+        description.put("fieldA", Arrays.asList("a0", "a1", "a2"));
+        description.put("fieldD", Arrays.asList(child));
+        final Properties properties = new Properties();
+        properties.setMinRestrictions(Arrays.asList(restriction("fieldD", positions)));
+        properties.setMaxRestrictions(Arrays.asList(restriction("fieldD", positions)));
+        // Every param of row r has value r + column, so every slot has own variant
+        final CoverageEngine rotation = domainSizes -> new CoverageTable() {
+            @Override
+            public int getRowsCount() {
+                return positions;
+            }
+
+            @Override
+            public int[] getRow(final int index) {
+                return IntStream.range(0, domainSizes.length).map(c -> (index + c) % domainSizes[c]).toArray();
+            }
+        };
+
+        final List<Map<String, Object>> generated = new PairwiseJsonGenerator(
+                GenerationOptions.builder().engine(rotation).build()).generate(description, properties);
+
+        assertThat(generated).hasSize(positions);
+        for (int row = 0; row < positions; row++) {
+            final int first = row;
+            assertThat(generated.get(row)).as("Check row %s", row).containsEntry("fieldA", "a" + row % 3)
+                    .containsEntry("fieldD", IntStream.rangeClosed(1, positions)
+                            .mapToObj(slot -> Collections.singletonMap("x", (first + slot) % positions))
+                            .collect(Collectors.toList()));
+        }
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check built in coverage engine generates every value of scalar fields")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testIpogCoverageEngine(final Case testCase) {
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator(
+                GenerationOptions.builder().engine(new IpogCoverageEngine()).build());
+
+        final List<Map<String, Object>> generated = gen.generate(testCase.getSource(), testCase.getProperties());
+
+        assertThat(generated).isNotEmpty();
+        testCase.getSource().forEach((field, values) -> values.stream().filter(value -> !(value instanceof Map))
+                .forEach(value -> assertThat(generated).as("Check value of field %s", field)
+                        .anyMatch(testCaseMap -> Objects.equals(testCaseMap.get(field), value))));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check incremental regeneration keeps previous variants")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testIncrementalRegeneration(final Case testCase) {
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+        final List<Map<String, Object>> previous = gen.generate(testCase.getSource(), testCase.getProperties());
+
+        assertThat(gen.regenerate(testCase.getSource(), testCase.getProperties(), previous))
+                .as("Check unchanged description gives same variants").isEqualTo(previous);
+
+        final Map<String, List<Object>> changed = new HashMap<>(testCase.getSource());
+        changed.put("addedField", Arrays.asList("first", "second", "third"));
+        final List<Map<String, Object>> regenerated = gen.regenerate(changed, testCase.getProperties(), previous);
+
+        assertThat(regenerated.subList(0, previous.size()).stream().map(testCaseMap -> {
+            final Map<String, Object> withoutAdded = new HashMap<>(testCaseMap);
+            withoutAdded.remove("addedField");
+            return withoutAdded;
+        })).as("Check previous variants go first").containsExactlyElementsOf(previous);
+        assertThat(regenerated).extracting(testCaseMap -> testCaseMap.get("addedField"))
+                .containsAll(changed.get("addedField"));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check shards together are equal to generated variants")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testShardedVariants(final Case testCase) {
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+        final GenerationPlan plan = gen.compile(testCase.getSource(), testCase.getProperties());
+        final List<Map<String, Object>> generated = plan.generate();
+        assertThat(plan.count()).isEqualTo(generated.size());
+        assertThat(gen.generate(testCase.getSource(), testCase.getProperties(), 0, 1))
+                .containsExactlyElementsOf(generated);
+
+        for (final int shardCount : IntStream.of(1, 2, 3, generated.size(), generated.size() + 1).filter(n -> n > 0)
+                .distinct().toArray()) {
+            final List<Map<String, Object>> sharded = new ArrayList<>();
+            for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+                sharded.addAll(plan.generate(shardIndex, shardCount));
+            }
+            assertThat(sharded).as("Check %s shards", shardCount).containsExactlyElementsOf(generated);
+        }
+        assertThat(plan.slice(generated.size() / 2, generated.size()))
+                .containsExactlyElementsOf(generated.subList(generated.size() / 2, generated.size()));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check prioritized variants cover pairs greedily and respect budget")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testPrioritizedVariants(final Case testCase) {
+        final GenerationPlan plan = new PairwiseJsonGenerator().compile(testCase.getSource(),
+                testCase.getProperties());
+        final List<Map<String, Object>> generated = plan.generate();
+
+        final PrioritizedSuite all = plan.prioritize(GenerationBudget.UNLIMITED);
+        assertThat(all.getCases()).containsExactlyInAnyOrderElementsOf(generated);
+        assertThat(all.getCoverage()).isEqualTo(1.0);
+
+        double coverage = 0;
+        for (final int maxRows : IntStream.of(1, 2, 3, generated.size() / 2, generated.size()).sorted().toArray()) {
+            final PrioritizedSuite limited = plan.prioritize(GenerationBudget.builder().maxRows(maxRows).build());
+            assertThat(limited.getCases()).as("Check first %s variants", maxRows)
+                    .containsExactlyElementsOf(all.getCases().subList(0, Math.min(maxRows, generated.size())));
+            assertThat(limited.getCoverage()).isGreaterThanOrEqualTo(coverage);
+            coverage = limited.getCoverage();
+        }
+        assertThat(plan.prioritize(GenerationBudget.builder().timeBudget(Duration.ZERO).build()).getCases())
+                .isEmpty();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check minimized variants are part of generated variants with all values")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testMinimizedVariants(final Case testCase) {
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+        final List<Map<String, Object>> generated = gen.generate(testCase.getSource(), testCase.getProperties());
+
+        final MinimizedSuite minimized = gen.generateMinimized(testCase.getSource(), testCase.getProperties());
+        log.info("Removed variants {} of {}", minimized.getRemovedRows(), minimized.getSuiteSize());
+        assertThat(minimized.getSuiteSize()).isEqualTo(generated.size());
+        assertThat(minimized.getCases()).hasSize(generated.size() - minimized.getRemovedRows()).isNotEmpty()
+                .isSubsetOf(generated);
+        assertThat(generated).containsSubsequence(minimized.getCases());
+        assertThat(minimized.getCoveredPairs()).as("Check all pairs of full suite are covered")
+                .isEqualTo(minimized.getTotalPairs()).isEqualTo(gen.compile(testCase.getSource(),
+                        testCase.getProperties()).prioritize(GenerationBudget.UNLIMITED).getTotalPairs());
+        final CoverageVerifier verifier = new CoverageVerifier();
+        final CoverageReport full = verifier.verify(testCase.getSource(), testCase.getProperties(), generated);
+        final CoverageReport report = verifier.verify(testCase.getSource(), testCase.getProperties(),
+                minimized.getCases());
+        assertThat(report.getCoveredPairs()).as("Check verified pairs are same as pairs of full suite")
+                .isEqualTo(full.getCoveredPairs());
+        assertThat(report.getExpectedPairs()).isEqualTo(full.getExpectedPairs());
+        for (final String field : testCase.getSource().keySet()) {
+            assertThat(values(minimized.getCases(), field)).as("Check all values of field %s", field)
+                    .containsExactlyInAnyOrderElementsOf(values(generated, field));
+        }
+    }
+
+    @Test
+    @DisplayName("Check minimized variants of wide domain take memory of covered pairs only")
+    void testMinimizedWideDomain() {
+        final Map<String, List<Object>> description = new HashMap<>();
+        description.put("fieldA", IntStream.range(0, 50_000).boxed().collect(Collectors.toList()));
+        description.put("fieldB", Arrays.asList(true, false));
+
+        final MinimizedSuite minimized = new PairwiseJsonGenerator().compile(description, new Properties())
+                .minimize();
+
+        assertThat(minimized.getRemovedRows()).isZero();
+        assertThat(minimized.getTotalPairs()).isEqualTo(minimized.getCoveredPairs()).isEqualTo(100_000 + 50_000 + 2);
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check batch generation returns same variants as sequential generation")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testBatchGeneration(final Case testCase) {
+        final List<Map<String, Object>> generated = new PairwiseJsonGenerator().generate(testCase.getSource(),
+                testCase.getProperties());
+        final GenerationRequest request = new GenerationRequest(testCase.getSource(), testCase.getProperties());
+
+        final Properties invalid = new Properties();
+        invalid.setObjects(null);
+
+        try (BatchGenerator batch = new BatchGenerator(new PairwiseJsonGenerator(), 2)) {
+            assertThat(batch.generateAll(Arrays.asList(request, request, request)).join())
+                    .allSatisfy(batchGenerated -> assertThat(batchGenerated).isEqualTo(generated));
+            assertThat(batch.getGenerator().getOptions().getSubtreeCache()).isNotNull();
+            assertThatThrownBy(() -> batch.submit(new GenerationRequest(testCase.getSource(), invalid)).join())
+                    .as("Check failed generation completes future exceptionally")
+                    .isInstanceOf(CompletionException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Check waiting batch generations do not take threads of executor")
+    void testBatchGenerationQueue() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CoverageEngine blocking = domainSizes -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new IpogCoverageEngine().cover(domainSizes);
+        };
+        final Map<String, List<Object>> description = new HashMap<>();
+        description.put("fieldA", Arrays.asList(1, 2));
+        final GenerationRequest request = new GenerationRequest(description, new Properties());
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (BatchGenerator batch = new BatchGenerator(
+                new PairwiseJsonGenerator(GenerationOptions.builder().engine(blocking).build()), executor, 1)) {
+            final CompletableFuture<List<List<Map<String, Object>>>> all = batch
+                    .generateAll(Arrays.asList(request, request, request));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(executor.submit(() -> true).get(10, TimeUnit.SECONDS))
+                    .as("Check executor has free thread while generations wait").isTrue();
+            release.countDown();
+            assertThat(all.get(10, TimeUnit.SECONDS)).hasSize(3).allSatisfy(generated -> assertThat(generated)
+                    .hasSize(2));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check listener receives events of every generated level")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testGenerationListener(final Case testCase) {
+        final HistogramGenerationListener listener = new HistogramGenerationListener();
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator(
+                GenerationOptions.builder().listener(listener).build());
+
+        final List<Map<String, Object>> generated = gen.generate(testCase.getSource(), testCase.getProperties());
+
+        final PathStatistics root = listener.getPaths().get(GenerationListener.ROOT_PATH);
+        assertThat(root.getLevels()).isEqualTo(1);
+        assertThat(root.getCollapseNanos().getCount()).isEqualTo(1);
+        assertThat(root.getDeduplicationOut()).isEqualTo(generated.size());
+        assertThat(listener.hottest(Integer.MAX_VALUE)).hasSameSizeAs(listener.getPaths().values());
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check listener receives partial events of closed short circuited stream")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testShortCircuitedStreamListener(final Case testCase) {
+        final HistogramGenerationListener listener = new HistogramGenerationListener();
+        final GenerationPlan plan = new PairwiseJsonGenerator(GenerationOptions.builder().listener(listener).build())
+                .compile(testCase.getSource(), testCase.getProperties());
+
+        try (Stream<Map<String, Object>> stream = plan.stream()) {
+            assertThat(stream.findFirst()).isPresent();
+        }
+
+        final PathStatistics root = listener.getPaths().get(GenerationListener.ROOT_PATH);
+        assertThat(root.getCollapseNanos().getCount()).isEqualTo(1);
+        assertThat(root.getDeduplicationOut()).isEqualTo(1);
+        assertThat(root.getDeduplicationIn()).isPositive();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check columnar suite views are equal to generated variants")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testGeneratedSuite(final Case testCase) throws JsonProcessingException {
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+
+        final GeneratedSuite suite = gen.generateSuite(testCase.getSource(), testCase.getProperties());
+        final List<Map<String, Object>> generated = gen.generate(testCase.getSource(), testCase.getProperties());
+
+        assertThat(suite.size()).isEqualTo(generated.size());
+        assertThat(suite.getRows()).containsExactlyElementsOf(generated);
+        final ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.readTree(mapper.writeValueAsString(suite.getRows())))
+                .isEqualTo(mapper.valueToTree(generated));
+    }
+
+    private static List<Object> values(final List<Map<String, Object>> cases, final String field) {
+        return cases.stream().map(c -> c.get(field))
+                .flatMap(value -> value instanceof List ? ((List<?>) value).stream() : Stream.of(value)).distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static Restriction restriction(final String fieldPath, final int value) {
+        final Restriction restriction = new Restriction();
+        restriction.setFieldPath(fieldPath);
+        restriction.setValue(value);
+        return restriction;
+    }
+
 }
@@ -0,0 +1,85 @@
+package pairwisejsongenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import com.anyqn.lib.GenerationPlan;
+import com.anyqn.lib.JsonSuiteWriter;
+import com.anyqn.lib.PairwiseJsonGenerator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import provider.BaseDataArgumentsProvider;
+import provider.TestData.Case;
+
+class JsonSuiteWriterTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @DisplayName("Check json array written from plan is equal to generated variants")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testArray(final Case testCase) throws IOException {
+        final GenerationPlan plan = new PairwiseJsonGenerator().compile(testCase.getSource(),
+                testCase.getProperties());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final long written = new JsonSuiteWriter(JsonSuiteWriter.Format.ARRAY).write(plan, out);
+
+        assertThat(written).isEqualTo(plan.generate().size());
+        assertThat(mapper.readTree(out.toByteArray())).isEqualTo(mapper.valueToTree(plan.generate()));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check ndjson written from suite is equal to generated variants")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testNdjson(final Case testCase) throws IOException {
+        final GenerationPlan plan = new PairwiseJsonGenerator().compile(testCase.getSource(),
+                testCase.getProperties());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new JsonSuiteWriter(JsonSuiteWriter.Format.NDJSON).write(plan.suite(), out);
+
+        final List<JsonNode> lines = new ArrayList<>();
+        for (final String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            lines.add(mapper.readTree(line));
+        }
+        assertThat(lines).containsExactlyElementsOf(mapper.valueToTree(plan.generate()));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check ndjson written to external generator keeps its settings")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testNdjsonExternalGenerator(final Case testCase) throws IOException {
+        final GenerationPlan plan = new PairwiseJsonGenerator().compile(testCase.getSource(),
+                testCase.getProperties());
+        final StringWriter out = new StringWriter();
+
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            new JsonSuiteWriter(JsonSuiteWriter.Format.NDJSON).write(plan, generator);
+            generator.writeNumber(1);
+            generator.writeNumber(2);
+        }
+
+        final String[] lines = out.toString().split("\n");
+        assertThat(lines).hasSize(plan.generate().size() + 1);
+        assertThat(lines[lines.length - 1]).as("Check root value separator is not changed").isEqualTo("1 2");
+        final List<JsonNode> objects = new ArrayList<>();
+        for (int i = 0; i < lines.length - 1; i++) {
+            objects.add(mapper.readTree(lines[i]));
+        }
+        assertThat(objects).containsExactlyElementsOf(mapper.valueToTree(plan.generate()));
+    }
+
+}
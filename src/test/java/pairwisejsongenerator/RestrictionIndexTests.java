@@ -0,0 +1,73 @@
+package pairwisejsongenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import com.anyqn.lib.PathDictionary;
+import com.anyqn.lib.Properties.Restriction;
+import com.anyqn.lib.RestrictionIndex;
+
+import provider.BaseDataArgumentsProvider;
+import provider.TestData.Case;
+
+class RestrictionIndexTests {
+
+    @ParameterizedTest
+    @DisplayName("Check indexed restrictions are same as restrictions from properties")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testIndexedRestrictions(final Case testCase) {
+        final RestrictionIndex index = testCase.getProperties().index();
+
+        for (final Restriction r : testCase.getProperties().getMaxRestrictions()) {
+            assertThat(index.getMaxRestriction(index.getPaths().intern(r.getFieldPath()))).isEqualTo(r.getValue());
+        }
+        for (final Restriction r : testCase.getProperties().getMinRestrictions()) {
+            assertThat(index.getMinRestriction(index.getPaths().intern(r.getFieldPath()))).isEqualTo(r.getValue());
+        }
+        for (final String path : testCase.getProperties().getObjects()) {
+            assertThat(index.isObject(index.getPaths().intern(path))).isTrue();
+        }
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check child paths are interned once")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testChildPaths(final Case testCase) {
+        final RestrictionIndex index = testCase.getProperties().index();
+
+        final int parent = index.child(PathDictionary.ROOT, "fieldD");
+        final int child = index.child(parent, "subFieldA");
+
+        assertThat(index.getPaths().path(child)).isEqualTo("fieldD.subFieldA");
+        assertThat(index.child(parent, "subFieldA")).isEqualTo(child);
+        assertThat(index.getPaths().intern("fieldD.subFieldA")).isEqualTo(child);
+        assertThat(index.getMinRestriction(index.child(PathDictionary.ROOT, "unknown"))).isZero();
+    }
+
+    @Test
+    @DisplayName("Check paths interned concurrently get one id per path")
+    void testConcurrentPaths() {
+        final PathDictionary paths = new PathDictionary();
+
+        final Map<String, Set<Integer>> ids = IntStream.range(0, 20_000).parallel().boxed()
+                .collect(Collectors.groupingByConcurrent(i -> "field" + i % 1000 + ".sub" + i % 7,
+                        Collectors.mapping(i -> paths.child(paths.child(PathDictionary.ROOT, "field" + i % 1000),
+                                "sub" + i % 7), Collectors.toSet())));
+
+        assertThat(ids).hasSize(7000).allSatisfy((path, pathIds) -> {
+            assertThat(pathIds).hasSize(1);
+            assertThat(paths.path(pathIds.iterator().next())).isEqualTo(path);
+        });
+        assertThat(paths.size()).isEqualTo(8000);
+    }
+
+}
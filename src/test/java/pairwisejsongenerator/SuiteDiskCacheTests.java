@@ -0,0 +1,120 @@
+package pairwisejsongenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import com.anyqn.lib.GenerationOptions;
+import com.anyqn.lib.HistogramGenerationListener;
+import com.anyqn.lib.IpogCoverageEngine;
+import com.anyqn.lib.PairwiseJsonGenerator;
+import com.anyqn.lib.Properties;
+import com.anyqn.lib.SuiteDiskCache;
+
+import provider.BaseDataArgumentsProvider;
+import provider.TestData.Case;
+
+class SuiteDiskCacheTests {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @DisplayName("Check cached suite is equal to generated suite and is not generated again")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testCachedSuite(final Case testCase) throws IOException {
+        final HistogramGenerationListener listener = new HistogramGenerationListener();
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator(
+                GenerationOptions.builder().listener(listener).build());
+        final SuiteDiskCache cache = new SuiteDiskCache(directory);
+        final List<Map<String, Object>> generated = gen.generate(testCase.getSource(), testCase.getProperties());
+        listener.clear();
+
+        assertThat(cache.generate(gen, testCase.getSource(), testCase.getProperties()))
+                .containsExactlyElementsOf(generated);
+        assertThat(listener.getPaths()).isNotEmpty();
+        listener.clear();
+
+        assertThat(cache.generate(gen, testCase.getSource(), testCase.getProperties()))
+                .as("Check suite is read from file").containsExactlyElementsOf(generated);
+        assertThat(listener.getPaths()).isEmpty();
+
+        assertThat(cache.stream(gen, testCase.getSource(), testCase.getProperties()).limit(1))
+                .as("Check first variant is decoded alone").containsExactly(generated.get(0));
+        assertThat(listener.getPaths()).isEmpty();
+
+        final Path file = directory.resolve(cache.key(gen, testCase.getSource(), testCase.getProperties()) + ".suite");
+        final byte[] stored = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(stored, stored.length - 1));
+        assertThat(cache.generate(gen, testCase.getSource(), testCase.getProperties()))
+                .as("Check truncated file is generated again").containsExactlyElementsOf(generated);
+        assertThat(listener.getPaths()).isNotEmpty();
+        listener.clear();
+
+        Files.write(file, ByteBuffer.allocate(4 * Integer.BYTES).putInt(0x50575343).putInt(SuiteDiskCache.FORMAT_VERSION)
+                .putInt(1).putInt(Integer.MAX_VALUE).array());
+        assertThat(cache.generate(gen, testCase.getSource(), testCase.getProperties()))
+                .as("Check file with wrong string length is generated again").containsExactlyElementsOf(generated);
+        listener.clear();
+
+        Files.write(file, new byte[] { 1, 2, 3 });
+        assertThat(cache.generate(gen, testCase.getSource(), testCase.getProperties()))
+                .as("Check broken file is generated again").containsExactlyElementsOf(generated);
+        assertThat(listener.getPaths()).isNotEmpty();
+
+        assertThat(cache.invalidate(gen, testCase.getSource(), testCase.getProperties())).isTrue();
+        assertThat(file).doesNotExist();
+        cache.generate(gen, testCase.getSource(), testCase.getProperties());
+        cache.clear();
+        assertThat(file).doesNotExist();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Check key depends on description, properties and coverage engine only")
+    @ArgumentsSource(BaseDataArgumentsProvider.class)
+    void testKey(final Case testCase) {
+        final SuiteDiskCache cache = new SuiteDiskCache(directory);
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+        final String key = cache.key(gen, testCase.getSource(), testCase.getProperties());
+
+        assertThat(cache.key(new PairwiseJsonGenerator(GenerationOptions.builder().parallel(true).build()),
+                new LinkedHashMap<>(testCase.getSource()), testCase.getProperties())).isEqualTo(key);
+        assertThat(cache.key(new PairwiseJsonGenerator(
+                GenerationOptions.builder().engine(new IpogCoverageEngine()).build()), testCase.getSource(),
+                testCase.getProperties())).isNotEqualTo(key);
+
+        final Map<String, List<Object>> changed = new HashMap<>(testCase.getSource());
+        changed.remove(changed.keySet().iterator().next());
+        assertThat(cache.key(gen, changed, testCase.getProperties())).isNotEqualTo(key);
+    }
+
+    @Test
+    @DisplayName("Check description with values which can not be stored is generated without cache")
+    void testUnsupportedValues() throws IOException {
+        final Map<String, List<Object>> description = new HashMap<>();
+        description.put("fieldA", Arrays.asList(1.5f, 'c', (short) 2));
+        description.put("fieldB", Arrays.asList(true, false));
+        final PairwiseJsonGenerator gen = new PairwiseJsonGenerator();
+        final SuiteDiskCache cache = new SuiteDiskCache(directory);
+
+        assertThat(cache.generate(gen, description, new Properties()))
+                .containsExactlyElementsOf(gen.generate(description, new Properties()));
+        assertThat(cache.invalidate(gen, description, new Properties())).isFalse();
+        assertThat(directory).isEmptyDirectory();
+    }
+
+}